@@ -0,0 +1,59 @@
+package jlox;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scanner, parser and resolver throughput on synthetic sources. Each stage
+ * starts from the previous stage's output, prepared once in setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+    @Param({ "100", "1000" })
+    public int units;
+
+    private String source;
+    private List<Token> tokens;
+    private List<Stmt> statements;
+
+    @Setup
+    public void setup() {
+        source = SyntheticSource.generate(units);
+        tokens = new Scanner(source, new ErrorReporter()).scanTokens();
+        statements = new Parser(tokens, new ErrorReporter()).parse();
+    }
+
+    @Benchmark
+    public Object scan() {
+        return new Scanner(source, new ErrorReporter(null)).scanTokens();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return new Parser(tokens, new ErrorReporter(null)).parse();
+    }
+
+    @Benchmark
+    public Object resolve() {
+        ErrorReporter reporter = new ErrorReporter(null);
+        new Resolver(reporter).resolve(statements);
+        return reporter;
+    }
+}
@@ -0,0 +1,79 @@
+package jlox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs the sample programs end to end in a fresh interpreter per call.
+ * Paths are relative to the repository root, so run the jar from there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    @Param({ "programs/fib_rec.lox", "programs/fib_for.lox", "programs/fullClass.lox", "programs/class.lox",
+            "programs/function.lox", "programs/while.lox", "programs/variables_blocks.lox",
+            "programs/resolve_vars.lox" })
+    public String script;
+
+    private Program program;
+
+    @Setup
+    public void setup() throws IOException {
+        String source = new String(Files.readAllBytes(Paths.get(script)));
+        program = Program.compile(source, new ErrorReporter());
+
+        if (program == null)
+            throw new IllegalStateException("Could not compile " + script);
+    }
+
+    @Benchmark
+    public void interpret(Blackhole blackhole) {
+        new Interpreter(new ErrorReporter(null), new BlackholeSink(blackhole)).run(program);
+    }
+
+    // Printing is part of the workload, but the terminal is not
+    private static final class BlackholeSink implements OutputSink {
+        private final Blackhole blackhole;
+
+        BlackholeSink(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void print(String text) {
+            blackhole.consume(text);
+        }
+
+        @Override
+        public void print(double number) {
+            blackhole.consume(number);
+        }
+
+        @Override
+        public void println() {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package jlox;
+
+/**
+ * Builds large, valid Lox sources for the front-end benchmarks. Each unit
+ * adds a class, a function and some top-level code that uses them.
+ */
+final class SyntheticSource {
+    private SyntheticSource() {
+    }
+
+    static String generate(int units) {
+        StringBuilder source = new StringBuilder();
+
+        for (int i = 0; i < units; i++) {
+            source.append("class Point").append(i).append(" {\n")
+                    .append("    init(x, y) {\n")
+                    .append("        this.x = x;\n")
+                    .append("        this.y = y;\n")
+                    .append("    }\n")
+                    .append("    sum() {\n")
+                    .append("        return this.x + this.y;\n")
+                    .append("    }\n")
+                    .append("}\n\n");
+
+            source.append("fun work").append(i).append("(n) {\n")
+                    .append("    var total = 0;\n")
+                    .append("    for (var i = 0; i < n; i = i + 1) {\n")
+                    .append("        if (i / 2 == 0 and total >= 0) {\n")
+                    .append("            total = total + Point").append(i).append("(i, n).sum();\n")
+                    .append("        } else {\n")
+                    .append("            total = total - 1;\n")
+                    .append("        }\n")
+                    .append("    }\n")
+                    .append("    return total;\n")
+                    .append("}\n\n");
+
+            source.append("var result").append(i).append(" = work").append(i).append("(10);\n")
+                    .append("print \"unit ").append(i).append("\" ;\n\n");
+        }
+
+        return source.toString();
+    }
+}
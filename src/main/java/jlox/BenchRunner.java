@@ -0,0 +1,182 @@
+package jlox;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Runs a suite of whole Lox programs and prints the timings as JSON, so
+ * results from different builds can be compared with any JSON tool.
+ *
+ * Every program is compiled once, then run warmup times followed by the
+ * measured iterations, each in a fresh interpreter with output discarded.
+ */
+final class BenchRunner {
+    static final List<String> SUITE = List.of(
+            "programs/fib_rec.lox",
+            "programs/fullClass.lox",
+            "programs/bench/binary_trees.lox",
+            "programs/bench/method_call.lox",
+            "programs/bench/field_access.lox",
+            "programs/bench/string_building.lox",
+            "programs/bench/zoo.lox",
+            "programs/bench/instantiation.lox");
+
+    private final int warmup;
+    private final int iterations;
+
+    BenchRunner(int warmup, int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs the given programs, or the standard suite if there are none.
+     * Returns false if any of them failed to compile or run.
+     */
+    boolean run(List<String> paths, StringBuilder json) throws IOException {
+        if (paths.isEmpty())
+            paths = SUITE;
+
+        boolean ok = true;
+
+        json.append("{\n");
+        json.append("  \"java\": ");
+        string(json, System.getProperty("java.vm.name") + " " + Runtime.version());
+        json.append(",\n  \"warmup\": ").append(warmup);
+        json.append(",\n  \"iterations\": ").append(iterations);
+        json.append(",\n  \"results\": [");
+
+        for (int i = 0; i < paths.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n");
+            ok &= measure(Paths.get(paths.get(i)), json);
+        }
+
+        json.append("\n  ]\n}\n");
+        return ok;
+    }
+
+    private boolean measure(Path path, StringBuilder json) throws IOException {
+        String source = new String(Files.readAllBytes(path), Charset.defaultCharset());
+        String name = path.getFileName().toString().replaceFirst("\\.lox$", "");
+
+        json.append("    {\"name\": ");
+        string(json, name);
+
+        ErrorReporter reporter = new ErrorReporter(null);
+        long start = System.nanoTime();
+        Program program = Program.compile(source, reporter);
+        long compile = System.nanoTime() - start;
+
+        if (program == null)
+            return failed(json, reporter);
+
+        json.append(", \"compileMs\": ");
+        millis(json, compile);
+
+        for (int i = 0; i < warmup; i++) {
+            if (time(program, reporter) < 0)
+                return failed(json, reporter);
+        }
+
+        long[] times = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            times[i] = time(program, reporter);
+            if (times[i] < 0)
+                return failed(json, reporter);
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        double sum = 0;
+        for (long time : times) {
+            min = Math.min(min, time);
+            max = Math.max(max, time);
+            sum += time;
+        }
+
+        double mean = iterations == 0 ? 0 : sum / iterations;
+        double squares = 0;
+        for (long time : times)
+            squares += (time - mean) * (time - mean);
+        double stddev = iterations < 2 ? 0 : Math.sqrt(squares / (iterations - 1));
+
+        json.append(", \"timesMs\": [");
+        for (int i = 0; i < times.length; i++) {
+            if (i > 0)
+                json.append(", ");
+            millis(json, times[i]);
+        }
+        json.append("]");
+
+        if (iterations > 0) {
+            json.append(", \"minMs\": ");
+            millis(json, min);
+            json.append(", \"maxMs\": ");
+            millis(json, max);
+            json.append(", \"meanMs\": ");
+            millis(json, mean);
+            json.append(", \"stddevMs\": ");
+            millis(json, stddev);
+        }
+
+        json.append("}");
+        return true;
+    }
+
+    /**
+     * Returns the time one run took in nanoseconds, or -1 if it failed.
+     */
+    private static long time(Program program, ErrorReporter reporter) {
+        Interpreter interpreter = new Interpreter(reporter, new NullSink());
+
+        long start = System.nanoTime();
+        interpreter.run(program);
+        long elapsed = System.nanoTime() - start;
+
+        return reporter.hadRuntimeError() ? -1 : elapsed;
+    }
+
+    private static boolean failed(StringBuilder json, ErrorReporter reporter) {
+        List<String> messages = reporter.messages();
+
+        json.append(", \"error\": ");
+        string(json, messages.isEmpty() ? "failed" : messages.get(0));
+        json.append("}");
+        return false;
+    }
+
+    private static void millis(StringBuilder json, double nanos) {
+        json.append(Math.round(nanos / 1e3) / 1e3);
+    }
+
+    private static void string(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        json.append(String.format("\\u%04x", (int) c));
+                    else
+                        json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,24 @@
+package jlox;
+
+/**
+ * Limits for a single run of an interpreter. A limit of zero means
+ * unlimited. Steps are counted at loop back-edges and calls; memory is an
+ * estimate of the instances and strings the script creates.
+ */
+public final class Budget {
+    public static final Budget UNLIMITED = new Budget(0, 0, 0);
+
+    final long maxSteps;
+    final long timeoutMillis;
+    final long maxBytes;
+
+    public Budget(long maxSteps, long timeoutMillis, long maxBytes) {
+        this.maxSteps = maxSteps;
+        this.timeoutMillis = timeoutMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isUnlimited() {
+        return maxSteps == 0 && timeoutMillis == 0 && maxBytes == 0;
+    }
+}
@@ -0,0 +1,11 @@
+package jlox;
+
+/**
+ * Raised when a run goes over its Budget. It is a RuntimeError, so hosts
+ * handle it like any other script failure.
+ */
+public class BudgetExceededError extends RuntimeError {
+    public BudgetExceededError(Token token, String message) {
+        super(token, message);
+    }
+}
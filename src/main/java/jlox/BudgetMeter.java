@@ -0,0 +1,98 @@
+package jlox;
+
+/**
+ * Tracks what is left of a Budget during one run. The hot path is a single
+ * decrement and compare; the clock and the real step count are only looked
+ * at every CHECK_INTERVAL steps. When nothing is limited the countdown
+ * starts at Long.MAX_VALUE and the slow path is never reached.
+ *
+ * Interpreters forked for tasks share their parent's meter. Updates are not
+ * atomic, so with tasks running the counts are approximate.
+ */
+final class BudgetMeter {
+    private static final long CHECK_INTERVAL = 1024;
+    private static final String TIMEOUT = "Script exceeded its time budget.";
+
+    /**
+     * Thrown by natives that stopped waiting because the deadline passed, or
+     * that found the budget used up by a task. The interpreter reports it at
+     * the call site as a BudgetExceededError.
+     */
+    static final class Expired extends RuntimeException {
+        Expired() {
+            this(TIMEOUT);
+        }
+
+        Expired(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private Budget budget = Budget.UNLIMITED;
+    private long countdown;
+    private long interval;
+    private long stepsLeft;
+    private long deadline;
+    private long bytesLeft;
+
+    BudgetMeter() {
+        reset();
+    }
+
+    void limit(Budget budget) {
+        this.budget = budget;
+        reset();
+    }
+
+    void reset() {
+        stepsLeft = budget.maxSteps > 0 ? budget.maxSteps : Long.MAX_VALUE;
+        deadline = budget.timeoutMillis > 0 ? System.nanoTime() + budget.timeoutMillis * 1_000_000 : 0;
+        bytesLeft = budget.maxBytes > 0 ? budget.maxBytes : Long.MAX_VALUE;
+        countdown = nextCountdown();
+    }
+
+    void step(Token token) {
+        if (--countdown < 0)
+            check(token);
+    }
+
+    void allocate(long bytes, Token token) {
+        if ((bytesLeft -= bytes) < 0)
+            throw new BudgetExceededError(token, "Script exceeded its memory budget.");
+    }
+
+    private void check(Token token) {
+        // The step that got us here is part of the interval too
+        stepsLeft -= interval;
+
+        if (budget.maxSteps > 0 && stepsLeft < 0)
+            throw new BudgetExceededError(token, "Script exceeded its step budget.");
+
+        if (deadline != 0 && System.nanoTime() - deadline > 0)
+            throw new BudgetExceededError(token, TIMEOUT);
+
+        countdown = nextCountdown();
+    }
+
+    /**
+     * Returns how long a blocking native may wait, which is Long.MAX_VALUE
+     * without a deadline. Throws Expired once the deadline has passed.
+     */
+    long nanosLeft() {
+        if (deadline == 0)
+            return Long.MAX_VALUE;
+
+        long left = deadline - System.nanoTime();
+        if (left <= 0)
+            throw new Expired();
+        return left;
+    }
+
+    private long nextCountdown() {
+        if (budget.maxSteps == 0 && budget.timeoutMillis == 0)
+            return Long.MAX_VALUE;
+
+        interval = stepsLeft < CHECK_INTERVAL ? stepsLeft + 1 : CHECK_INTERVAL;
+        return interval - 1;
+    }
+}
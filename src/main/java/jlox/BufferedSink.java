@@ -0,0 +1,123 @@
+package jlox;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Collects printed text in memory and hands it to a byte channel in large
+ * writes instead of going through System.out once per line.
+ */
+public class BufferedSink implements OutputSink {
+    public enum FlushMode {
+        // Only flush when the interpreter finishes (or hits a runtime error)
+        EXIT,
+        // Flush whenever the buffer reaches its capacity
+        SIZE,
+        // Flush after every line, for interactive sessions
+        LINE
+    }
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final WritableByteChannel channel;
+    private final FlushMode mode;
+    private final int capacity;
+    private final StringBuilder buffer;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder;
+
+    public BufferedSink(WritableByteChannel channel, FlushMode mode, int capacity) {
+        this.channel = channel;
+        this.mode = mode;
+        this.capacity = capacity;
+        this.buffer = new StringBuilder(capacity);
+        this.bytes = ByteBuffer.allocate(capacity);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public static BufferedSink stdout(FlushMode mode) {
+        return new BufferedSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), mode,
+                DEFAULT_CAPACITY);
+    }
+
+    public static BufferedSink file(Path path, FlushMode mode) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedSink(channel, mode, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public synchronized void print(String text) {
+        buffer.append(text);
+
+        if (mode == FlushMode.SIZE && buffer.length() >= capacity)
+            flush();
+    }
+
+    @Override
+    public synchronized void print(double number) {
+        NumberFormatter.format(number, buffer);
+
+        if (mode == FlushMode.SIZE && buffer.length() >= capacity)
+            flush();
+    }
+
+    @Override
+    public synchronized void println() {
+        buffer.append(NEWLINE);
+
+        if (mode == FlushMode.LINE || (mode == FlushMode.SIZE && buffer.length() >= capacity))
+            flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (buffer.length() == 0)
+            return;
+
+        CharBuffer chars = CharBuffer.wrap(buffer);
+
+        try {
+            for (;;) {
+                CoderResult result = encoder.encode(chars, bytes, true);
+                drain();
+                if (result.isUnderflow())
+                    break;
+            }
+
+            while (encoder.flush(bytes).isOverflow())
+                drain();
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            encoder.reset();
+            buffer.setLength(0);
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+
+        bytes.clear();
+    }
+}
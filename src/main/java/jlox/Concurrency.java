@@ -0,0 +1,186 @@
+package jlox;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Task and channel natives. Tasks run on virtual threads, each in its own
+ * interpreter forked from the caller, so they share globals and closures
+ * but not the current scope.
+ */
+final class Concurrency {
+    /**
+     * Set the first time a task is spawned and never cleared. Until then
+     * environments and instances skip locking entirely.
+     */
+    static volatile boolean enabled = false;
+
+    // Blocking queues do not take null, so nil travels as this marker
+    private static final Object NIL = new Object();
+
+    private Concurrency() {
+    }
+
+    static final class LoxTask {
+        private final FutureTask<Object> future;
+
+        /**
+         * Creates a task that is outstanding until it is joined or finishes
+         * without an error. Failed tasks stay outstanding so their error is
+         * reported even if nobody joins them.
+         */
+        LoxTask(Callable<Object> body, Set<LoxTask> outstanding) {
+            this.future = new FutureTask<>(body) {
+                @Override
+                protected void done() {
+                    if (state() == State.SUCCESS)
+                        outstanding.remove(LoxTask.this);
+                }
+            };
+            outstanding.add(this);
+        }
+
+        /**
+         * Waits for the task to finish and returns the error it failed with,
+         * or null.
+         */
+        RuntimeError await() {
+            try {
+                future.get();
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeError)
+                    return (RuntimeError) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw (RuntimeException) cause;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "<task>";
+        }
+    }
+
+    static final class LoxChannel {
+        private final BlockingQueue<Object> queue;
+
+        LoxChannel(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // Both wait no longer than the meter's deadline
+        void send(Object value, BudgetMeter meter) throws InterruptedException {
+            Object element = value == null ? NIL : value;
+            while (!queue.offer(element, meter.nanosLeft(), TimeUnit.NANOSECONDS)) {
+            }
+        }
+
+        Object receive(BudgetMeter meter) throws InterruptedException {
+            Object value;
+            while ((value = queue.poll(meter.nanosLeft(), TimeUnit.NANOSECONDS)) == null) {
+            }
+            return value == NIL ? null : value;
+        }
+
+        @Override
+        public String toString() {
+            return "<channel>";
+        }
+    }
+
+    static final NativeFunction SPAWN = new NativeFunction("spawn", 1, (interpreter, arguments) -> {
+        Object callee = arguments.get(0);
+
+        if (!(callee instanceof LoxCallable) || ((LoxCallable) callee).arity() != 0)
+            throw new NativeFunction.Error("spawn() expects a function with no parameters.");
+
+        LoxCallable function = (LoxCallable) callee;
+        Interpreter fork = interpreter.fork();
+        LoxTask task = new LoxTask(() -> fork.callBack(function, List.of()), interpreter.tasks());
+
+        enabled = true;
+        Thread.ofVirtual().name("lox-task").start(task.future);
+
+        return task;
+    });
+
+    static final NativeFunction JOIN = new NativeFunction("join", 1, (interpreter, arguments) -> {
+        if (!(arguments.get(0) instanceof LoxTask))
+            throw new NativeFunction.Error("join() expects a task.");
+
+        LoxTask task = (LoxTask) arguments.get(0);
+        FutureTask<Object> future = task.future;
+        // Whoever joins the task sees its error, so it is no longer reported at exit
+        interpreter.tasks().remove(task);
+
+        try {
+            while (true) {
+                try {
+                    return future.get(interpreter.meter().nanosLeft(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Go round again, which throws if the deadline has passed
+                }
+            }
+        } catch (ExecutionException e) {
+            // Raise the task's error again here, as a new error whose trace starts at the join
+            Throwable cause = e.getCause();
+            if (cause instanceof BudgetExceededError)
+                throw new BudgetMeter.Expired(cause.getMessage());
+            if (cause instanceof RuntimeError)
+                throw new NativeFunction.Error(cause.getMessage(), ((RuntimeError) cause).value);
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new NativeFunction.Error("Task failed: " + cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeFunction.Error("Interrupted while joining a task.");
+        }
+    });
+
+    static final NativeFunction CHANNEL = new NativeFunction("channel", 1, (interpreter, arguments) -> {
+        Object capacity = arguments.get(0);
+
+        if (!(capacity instanceof Double) || (double) capacity < 1 || (double) capacity != Math.floor((double) capacity))
+            throw new NativeFunction.Error("channel() expects a positive whole capacity.");
+
+        return new LoxChannel((int) (double) capacity);
+    });
+
+    static final NativeFunction SEND = new NativeFunction("send", 2, (interpreter, arguments) -> {
+        try {
+            channel(arguments.get(0)).send(arguments.get(1), interpreter.meter());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeFunction.Error("Interrupted while sending.");
+        }
+    });
+
+    static final NativeFunction RECEIVE = new NativeFunction("receive", 1, (interpreter, arguments) -> {
+        try {
+            return channel(arguments.get(0)).receive(interpreter.meter());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeFunction.Error("Interrupted while receiving.");
+        }
+    });
+
+    private static LoxChannel channel(Object value) {
+        if (!(value instanceof LoxChannel))
+            throw new NativeFunction.Error("Expected a channel.");
+        return (LoxChannel) value;
+    }
+}
@@ -1,30 +1,62 @@
 package jlox;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
-public class Environment {
-    private final Map<String, Object> values = new HashMap<>();
+public class Environment implements Serializable {
+    private final Map<Symbol, Object> values = new HashMap<>();
     private final Environment enclosing;
 
     public Environment() {
-        this.enclosing = null;
+        this(null);
     }
 
     public Environment(Environment enclosing) {
         this.enclosing = enclosing;
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.ENVIRONMENTS.increment();
+    }
+
+    // Live view of this scope's variables, used to expose globals to hosts
+    Map<Symbol, Object> values() {
+        return values;
     }
 
-    public void define(String name, Object value) {
+    public void define(Symbol name, Object value) {
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                values.put(name, value);
+            }
+            return;
+        }
+
         values.put(name, value);
     }
 
-    public Object getAt(int distance, String name) {
-        return ancestor(distance).values.get(name);
+    public Object getAt(int distance, Symbol name) {
+        Environment env = ancestor(distance);
+
+        if (Concurrency.enabled) {
+            synchronized (env) {
+                return env.values.get(name);
+            }
+        }
+
+        return env.values.get(name);
     }
 
     public Object assignAt(int distance, Token name, Object value) {
-        return ancestor(distance).values.put(name.lexeme, value);
+        Environment env = ancestor(distance);
+
+        if (Concurrency.enabled) {
+            synchronized (env) {
+                return env.values.put(name.symbol, value);
+            }
+        }
+
+        return env.values.put(name.symbol, value);
     }
 
     private Environment ancestor(int distance) {
@@ -38,8 +70,15 @@ public class Environment {
     }
 
     public void assign(Token token, Object value) {
-        if (values.containsKey(token.lexeme)) {
-            values.put(token.lexeme, value);
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                if (values.containsKey(token.symbol)) {
+                    values.put(token.symbol, value);
+                    return;
+                }
+            }
+        } else if (values.containsKey(token.symbol)) {
+            values.put(token.symbol, value);
             return;
         }
 
@@ -52,8 +91,14 @@ public class Environment {
     }
 
     public Object get(Token token) {
-        if (values.containsKey(token.lexeme))
-            return values.get(token.lexeme);
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                if (values.containsKey(token.symbol))
+                    return values.get(token.symbol);
+            }
+        } else if (values.containsKey(token.symbol)) {
+            return values.get(token.symbol);
+        }
 
         if (enclosing != null)
             return enclosing.get(token);
@@ -0,0 +1,89 @@
+package jlox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Error state for one compilation or execution context. Every context gets
+ * its own reporter so scripts running side by side never see each other's
+ * failures.
+ */
+public class ErrorReporter {
+    private final PrintStream stream;
+    private final List<String> messages = new ArrayList<>();
+    private boolean hadError = false;
+    private boolean hadRuntimeError = false;
+
+    public ErrorReporter() {
+        this(System.err);
+    }
+
+    /**
+     * @param stream where messages are echoed as they are reported, or null to
+     *               only collect them
+     */
+    public ErrorReporter(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    public synchronized boolean hadError() {
+        return hadError;
+    }
+
+    public synchronized boolean hadRuntimeError() {
+        return hadRuntimeError;
+    }
+
+    public synchronized List<String> messages() {
+        return List.copyOf(messages);
+    }
+
+    public synchronized void reset() {
+        hadError = false;
+        hadRuntimeError = false;
+        messages.clear();
+    }
+
+    public synchronized void runtimeError(RuntimeError error) {
+        Events.runtimeError(error);
+        if (LoxMetrics.enabled)
+            LoxMetrics.RUNTIME_ERRORS.increment();
+        Token token = error.token;
+        String where = token.module == null ? "line" + token.line : RuntimeError.location(token.module, token.line);
+        emit(error.getMessage() + "\n[" + where + "]" + error.trace());
+        hadRuntimeError = true;
+    }
+
+    public synchronized void error(int line, String message) {
+        report(line, "", message);
+    }
+
+    public synchronized void error(Token token, String message) {
+        if (token.type == TokenType.EOF)
+            report(token.line, " at end", message);
+        else
+            report(token.line, " at '" + token.lexeme + "'", message);
+    }
+
+    /**
+     * Records the errors found in an imported module.
+     */
+    public synchronized void error(String module, List<String> messages) {
+        for (String message : messages)
+            emit(module + ": " + message);
+        hadError = true;
+    }
+
+    private void report(int line, String where, String message) {
+        emit("[line " + line + "] Error " + where + ": " + message);
+        hadError = true;
+    }
+
+    private void emit(String message) {
+        messages.add(message);
+
+        if (stream != null)
+            stream.println(message);
+    }
+}
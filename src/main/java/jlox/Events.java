@@ -0,0 +1,163 @@
+package jlox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events for interpreter activity, so Lox work shows up
+ * in the same recording as GC, locks and allocation. Creating an event
+ * object loads and starts JFR, so callers check enabled first and the event
+ * classes stay unloaded until a recording is running.
+ */
+final class Events {
+    // Whether any recording is running, updated as recordings start and stop
+    static volatile boolean enabled;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                enabled = running(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                enabled = running(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private Events() {
+    }
+
+    private static boolean running(FlightRecorder recorder) {
+        for (Recording recording : recorder.getRecordings()) {
+            if (recording.getState() == RecordingState.RUNNING)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Starts timing a compile phase. Only call while enabled; the result is
+     * passed back to endCompile.
+     */
+    static Object beginCompile(String phase) {
+        return Types.beginCompile(phase);
+    }
+
+    static void endCompile(Object event, int lines) {
+        Types.endCompile(event, lines);
+    }
+
+    /**
+     * Starts timing a call to a Lox function. Only call while enabled; the
+     * result is passed back to endCall.
+     */
+    static Object beginCall() {
+        return Types.beginCall();
+    }
+
+    static void endCall(Object event, Token name) {
+        Types.endCall(event, name);
+    }
+
+    static void runtimeError(RuntimeError error) {
+        if (enabled)
+            Types.runtimeError(error);
+    }
+
+    // The event classes, only loaded once a recording is running
+    private static final class Types {
+        @Name("jlox.Compile")
+        @Label("Lox Compile Phase")
+        @Category("Lox")
+        @Description("One phase of compiling a script: scan, parse or resolve")
+        @StackTrace(false)
+        static final class Compile extends Event {
+            @Label("Phase")
+            String phase;
+
+            @Label("Lines")
+            int lines;
+        }
+
+        @Name("jlox.Call")
+        @Label("Lox Function Call")
+        @Category("Lox")
+        @Description("A call to a Lox function that took longer than the threshold")
+        @StackTrace(false)
+        @Threshold("10 ms")
+        static final class Call extends Event {
+            @Label("Function")
+            String function;
+
+            @Label("Line")
+            @Description("Line the function is declared on")
+            int line;
+        }
+
+        @Name("jlox.RuntimeError")
+        @Label("Lox Runtime Error")
+        @Category("Lox")
+        @Description("A runtime error that ended a script")
+        static final class ScriptError extends Event {
+            @Label("Message")
+            String message;
+
+            @Label("Line")
+            int line;
+        }
+
+        static Object beginCompile(String phase) {
+            Compile event = new Compile();
+            event.phase = phase;
+            event.begin();
+            return event;
+        }
+
+        static void endCompile(Object object, int lines) {
+            Compile event = (Compile) object;
+            event.end();
+            if (event.shouldCommit()) {
+                event.lines = lines;
+                event.commit();
+            }
+        }
+
+        static Object beginCall() {
+            Call event = new Call();
+            event.begin();
+            return event;
+        }
+
+        static void endCall(Object object, Token name) {
+            Call event = (Call) object;
+            event.end();
+            if (event.shouldCommit()) {
+                event.function = name.lexeme;
+                event.line = name.line;
+                event.commit();
+            }
+        }
+
+        static void runtimeError(RuntimeError error) {
+            ScriptError event = new ScriptError();
+            if (!event.isEnabled())
+                return;
+
+            event.message = error.getMessage();
+            event.line = error.token == null ? 0 : error.token.line;
+            event.commit();
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package jlox;
 
+import java.io.Serializable;
 import java.util.List;
 
-abstract class Expr{
+abstract class Expr implements Serializable {
     interface Visitor<R> {
         R visitAssignExpr(Assign expr);
         R visitBinaryExpr(Binary expr);
         R visitCallExpr(Call expr);
         R visitGetExpr(Get expr);
+        R visitInvokeExpr(Invoke expr);
         R visitSetExpr(Set expr);
+        R visitSuperExpr(Super expr);
         R visitThisExpr(This expr);
         R visitGroupingExpr(Grouping expr);
         R visitLiteralExpr(Literal expr);
@@ -19,6 +22,7 @@ abstract class Expr{
     public static class Assign extends Expr {
         final Token name;
         final Expr value;
+        int depth = -1;
         public Assign(Token name, Expr value) {
             this.name = name;
             this.value = value;
@@ -62,6 +66,8 @@ abstract class Expr{
     public static class Get extends Expr {
         final Expr object;
         final Token name;
+        Sites sites;
+        int site;
         public Get(Expr object, Token name) {
             this.object = object;
             this.name = name;
@@ -72,10 +78,31 @@ abstract class Expr{
             return visitor.visitGetExpr(this);
         }
     }
+    public static class Invoke extends Expr {
+        final Expr object;
+        final Token name;
+        final Token paren;
+        final List<Expr> arguments;
+        Sites sites;
+        int site;
+        public Invoke(Expr object, Token name, Token paren, List<Expr> arguments) {
+            this.object = object;
+            this.name = name;
+            this.paren = paren;
+            this.arguments = arguments;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitInvokeExpr(this);
+        }
+    }
     public static class Set extends Expr {
         final Expr object;
         final Token name;
         final Expr value;
+        Sites sites;
+        int site;
         public Set(Expr object, Token name, Expr value) {
             this.object = object;
             this.name = name;
@@ -87,8 +114,23 @@ abstract class Expr{
             return visitor.visitSetExpr(this);
         }
     }
+    public static class Super extends Expr {
+        final Token keyword;
+        final Token method;
+        int depth = -1;
+        public Super(Token keyword, Token method) {
+            this.keyword = keyword;
+            this.method = method;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSuperExpr(this);
+        }
+    }
     public static class This extends Expr {
         final Token keyword;
+        int depth = -1;
         public This(Token keyword) {
             this.keyword = keyword;
         }
@@ -137,6 +179,7 @@ abstract class Expr{
     }
     public static class Variable extends Expr {
         final Token name;
+        int depth = -1;
         public Variable(Token name) {
             this.name = name;
         }
@@ -0,0 +1,100 @@
+package jlox;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.script.Bindings;
+
+/**
+ * Bindings backed directly by an interpreter's global environment. Reads and
+ * writes go to the same map the script sees, so nothing is copied on eval;
+ * names are translated to symbols on the way through.
+ */
+class GlobalBindings extends AbstractMap<String, Object> implements Bindings {
+    final Interpreter interpreter;
+    private final Map<Symbol, Object> values;
+
+    GlobalBindings(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.values = interpreter.global.values();
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        checkKey(name);
+        return values.put(Symbol.of(name), LoxScriptEngine.toLox(value));
+    }
+
+    @Override
+    public Object get(Object key) {
+        checkKey(key);
+        Symbol symbol = Symbol.lookup((String) key);
+        return symbol == null ? null : values.get(symbol);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkKey(key);
+        Symbol symbol = Symbol.lookup((String) key);
+        return symbol != null && values.containsKey(symbol);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        checkKey(key);
+        Symbol symbol = Symbol.lookup((String) key);
+        return symbol == null ? null : values.remove(symbol);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<Symbol, Object>> entries = values.entrySet().iterator();
+
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        Entry<Symbol, Object> entry = entries.next();
+
+                        return new SimpleEntry<>(entry.getKey().name, entry.getValue()) {
+                            @Override
+                            public Object setValue(Object value) {
+                                super.setValue(value);
+                                return entry.setValue(LoxScriptEngine.toLox(value));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
+    }
+
+    private static void checkKey(Object key) {
+        if (key == null)
+            throw new NullPointerException("key can not be null");
+        if (!(key instanceof String))
+            throw new ClassCastException("key should be a String");
+        if (((String) key).isEmpty())
+            throw new IllegalArgumentException("key can not be empty");
+    }
+}
@@ -1,18 +1,24 @@
 package jlox;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import jlox.Expr.Assign;
 import jlox.Expr.Binary;
 import jlox.Expr.Call;
 import jlox.Expr.Get;
 import jlox.Expr.Grouping;
+import jlox.Expr.Invoke;
 import jlox.Expr.Literal;
 import jlox.Expr.Logical;
-import jlox.Expr.Set;
+import jlox.Expr.Super;
 import jlox.Expr.This;
 import jlox.Expr.Unary;
 import jlox.Expr.Variable;
@@ -26,78 +32,320 @@ import jlox.Stmt.Var;
 import jlox.Stmt.While;
 
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
-    public Environment global = new Environment();
-    private Environment env = global;
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    private static final int RECENT_SITES = 8;
+    // Rough heap cost of an instance and of a string's fixed parts, for memory budgets
+    private static final long INSTANCE_BYTES = 48;
+    private static final long STRING_BYTES = 40;
+
+    public final Environment global;
+    private Environment env;
+    private final ErrorReporter reporter;
+    private final OutputSink out;
+    private final BudgetMeter meter;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = 0;
+    // Shadow stack for the sampling profiler, null when not profiling
+    Profiler.Stack frames;
+    // Per-line counters, null unless counting
+    private LineCounters lines;
+    // Modules this interpreter and its forks have run, by absolute path
+    private final Set<String> imported;
+    // Tasks spawned by this interpreter and its forks that are still outstanding
+    private final Set<Concurrency.LoxTask> tasks;
+    // Identifies this interpreter and its forks to the property caches of each program
+    private final Object context;
+    // Cache tables of recently run programs, by identity hash, so switching between
+    // programs rarely goes back to Sites
+    private final Sites[] recentSites = new Sites[RECENT_SITES];
+    private final PropertyCache[][] recentTables = new PropertyCache[RECENT_SITES][];
 
     public Interpreter() {
-        global.define("clock", new LoxCallable() {
-            @Override
-            public int arity() {
-                return 0;
-            }
+        this(new ErrorReporter(), BufferedSink.stdout(BufferedSink.FlushMode.SIZE));
+    }
+
+    public Interpreter(ErrorReporter reporter, OutputSink out) {
+        this.reporter = reporter;
+        this.out = out;
+        this.meter = new BudgetMeter();
+        this.global = new Environment();
+        this.env = global;
+        this.imported = ConcurrentHashMap.newKeySet();
+        this.tasks = ConcurrentHashMap.newKeySet();
+        this.context = new Object();
+
+        global.define(Symbol.of("clock"), new NativeFunction("clock", 0,
+                (interpreter, arguments) -> (double) System.currentTimeMillis() / 1000.0));
+        global.define(Symbol.of("spawn"), Concurrency.SPAWN);
+        global.define(Symbol.of("join"), Concurrency.JOIN);
+        global.define(Symbol.of("channel"), Concurrency.CHANNEL);
+        global.define(Symbol.of("send"), Concurrency.SEND);
+        global.define(Symbol.of("receive"), Concurrency.RECEIVE);
+        global.define(Symbol.of("parallelMap"), Parallel.MAP);
+        global.define(Symbol.of("parallelReduce"), Parallel.REDUCE);
+    }
+
+    // Shares everything with the parent except the current scope
+    private Interpreter(Interpreter parent) {
+        this.reporter = parent.reporter;
+        this.out = parent.out;
+        this.meter = parent.meter;
+        this.global = parent.global;
+        this.env = global;
+        this.pool = parent.pool;
+        this.chunkSize = parent.chunkSize;
+        this.frames = parent.frames == null ? null : parent.frames.fork();
+        this.lines = parent.lines == null ? null : parent.lines.fork();
+        this.imported = parent.imported;
+        this.tasks = parent.tasks;
+        this.context = parent.context;
+    }
+
+    /**
+     * Returns an interpreter for running code on another thread. It sees the
+     * same globals, output and error reporter as this one.
+     */
+    Interpreter fork() {
+        return new Interpreter(this);
+    }
+
+    public void run(Program program) {
+        if (LoxMetrics.enabled)
+            LoxMetrics.ran(program);
+
+        interpret(program.statements);
+    }
+
+    /**
+     * Runs the program and returns the value of its last statement if that is
+     * an expression statement. Unlike run, runtime errors are thrown to the
+     * caller instead of being reported.
+     */
+    public Object eval(Program program) {
+        Object result = null;
+        meter.reset();
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.ran(program);
+
+        if (frames != null)
+            frames.running = true;
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double) System.currentTimeMillis() / 1000.0;
+        try {
+            for (Stmt stmt : program.statements) {
+                if (stmt instanceof Stmt.Expression) {
+                    result = evaluate(((Stmt.Expression) stmt).expression);
+                } else {
+                    execute(stmt);
+                    result = null;
+                }
             }
 
-            @Override
-            public String toString() {
-                return "<native fn>";
-            }
-        });
+            for (RuntimeError error : awaitTasks())
+                throw error;
+        } finally {
+            if (frames != null)
+                frames.running = false;
+            out.flush();
+        }
+
+        return result;
     }
 
     public void interpret(List<Stmt> statements) {
+        meter.reset();
+
+        if (frames != null)
+            frames.running = true;
+
         try {
             for (Stmt stmt : statements) {
                 execute(stmt);
             }
+
+            for (RuntimeError error : awaitTasks()) {
+                out.flush();
+                reporter.runtimeError(error);
+            }
         } catch (RuntimeError e) {
-            Lox.runtimeError(e);
+            // Whatever the script printed before failing must come out first
+            out.flush();
+            reporter.runtimeError(e);
+        } finally {
+            if (frames != null)
+                frames.running = false;
+            out.flush();
         }
     }
 
-    private void execute(Stmt stmt) {
-        stmt.accept(this);
+    /**
+     * Waits for every task that is still outstanding, so none is cut off when
+     * the run ends, and returns the errors of those that failed.
+     */
+    private List<RuntimeError> awaitTasks() {
+        List<RuntimeError> errors = new ArrayList<>();
+
+        // Tasks may spawn more tasks while we wait
+        while (!tasks.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            for (Concurrency.LoxTask task : tasks) {
+                RuntimeError error = task.await();
+                tasks.remove(task);
+                if (error != null)
+                    errors.add(error);
+            }
+        }
+
+        return errors;
+    }
+
+    Set<Concurrency.LoxTask> tasks() {
+        return tasks;
+    }
+
+    public OutputSink output() {
+        return out;
+    }
+
+    public ErrorReporter reporter() {
+        return reporter;
+    }
+
+    /**
+     * Limits every following run. Each run starts with the full budget.
+     */
+    public void setBudget(Budget budget) {
+        meter.limit(budget);
+    }
+
+    void resetBudget() {
+        meter.reset();
+    }
+
+    /**
+     * Sets how many workers parallelMap and parallelReduce use. Zero goes back
+     * to the common pool. A pool this replaces is shut down once its work is
+     * done.
+     */
+    public void setParallelism(int parallelism) {
+        ForkJoinPool common = ForkJoinPool.commonPool();
+        if (parallelism > 0 && pool != common && pool.getParallelism() == parallelism)
+            return;
+
+        ForkJoinPool previous = pool;
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : common;
+        if (previous != common)
+            previous.shutdown();
+    }
+
+    /**
+     * Sets how many indexes each parallel chunk runs. Zero picks a size from
+     * the range length and the parallelism.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Saves the global variables to a file that loadSnapshot can restore,
+     * for example after running a prelude of definitions.
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        Snapshot.save(this, path);
+    }
+
+    /**
+     * Defines the global variables saved in the file, replacing any existing
+     * ones with the same names.
+     */
+    public void loadSnapshot(Path path) throws IOException {
+        Snapshot.load(this, path);
+    }
+
+    /**
+     * Records the Lox call stack for the given profiler from now on.
+     */
+    void profile(Profiler profiler) {
+        this.frames = profiler.stack();
+    }
+
+    /**
+     * Counts the statements run on each line from now on.
+     */
+    void countLines(LineCounters lines) {
+        this.lines = lines;
+    }
+
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    BudgetMeter meter() {
+        return meter;
     }
 
-    public void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    private void execute(Stmt stmt) {
+        if (lines != null) {
+            lines.execute(this, stmt);
+            return;
+        }
+
+        stmt.accept(this);
     }
 
     private String stringify(Object obj) {
         if (obj == null)
             return "nil";
-        if (obj instanceof Double) {
-            String text = obj.toString();
-            if (text.endsWith(".0"))
-                text = text.substring(0, text.length() - 2);
-            return text;
-        }
+        if (obj instanceof Double)
+            return NumberFormatter.format((double) obj);
 
         return obj.toString();
     }
 
     @Override
     public Void visitBlockStmt(Block stmt) {
+        if (!stmt.scoped) {
+            for (Stmt statement : stmt.statements) {
+                execute(statement);
+            }
+            return null;
+        }
+
         executeBlock(stmt.statements, new Environment(env));
         return null;
     }
 
     @Override
     public Void visitClassStmt(Class stmt) {
-        env.define(stmt.name.lexeme, null);
-        Map<String, LoxFunction> methods = new HashMap<>();
+        LoxClass superclass = null;
+
+        if (stmt.superclass != null) {
+            Object value = evaluate(stmt.superclass);
+            if (!(value instanceof LoxClass))
+                throw new RuntimeError(stmt.superclass.name, "Superclass must be a class.");
+            superclass = (LoxClass) value;
+        }
+
+        env.define(stmt.name.symbol, null);
+
+        // Methods of a subclass close over a scope holding 'super'
+        Environment closure = env;
+        if (superclass != null) {
+            closure = new Environment(env);
+            closure.define(Symbol.SUPER, superclass);
+        }
+
+        Map<Symbol, LoxFunction> methods = new HashMap<>();
 
         for (Stmt.Function method : stmt.methods) {
-            LoxFunction function = new LoxFunction(method, env, method.name.lexeme.equals("init"));
+            LoxFunction function = new LoxFunction(method, closure, method.name.symbol == Symbol.INIT);
 
-            methods.put(method.name.lexeme, function);
+            methods.put(method.name.symbol, function);
         }
 
-        LoxClass klass = new LoxClass(stmt.name.lexeme, methods);
+        LoxClass klass = new LoxClass(stmt.name.lexeme, superclass, methods);
 
         env.assign(stmt.name, klass);
         return null;
@@ -125,27 +373,76 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             value = evaluate(stmt.initializer);
         }
 
-        env.define(stmt.name.lexeme, value);
+        env.define(stmt.name.symbol, value);
 
         return null;
     }
 
     @Override
     public Void visitWhileStmt(While stmt) {
-        while (isTruthy(evaluate(stmt.condition)))
-            execute(stmt.body);
+        while (isTruthy(evaluate(stmt.condition))) {
+            try {
+                execute(stmt.body);
+            } catch (LoopControl jump) {
+                if (jump == LoopControl.BREAK)
+                    break;
+            }
+            meter.step(stmt.keyword);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitForStmt(Stmt.For stmt) {
+        Environment previous = env;
+
+        try {
+            // One environment for the whole loop, however many iterations it runs
+            if (stmt.scoped)
+                env = new Environment(env);
+
+            if (stmt.initializer != null)
+                execute(stmt.initializer);
+
+            while (stmt.condition == null || isTruthy(evaluate(stmt.condition))) {
+                try {
+                    execute(stmt.body);
+                } catch (LoopControl jump) {
+                    if (jump == LoopControl.BREAK)
+                        break;
+                }
+
+                if (stmt.increment != null)
+                    evaluate(stmt.increment);
+                meter.step(stmt.keyword);
+            }
+        } finally {
+            env = previous;
+        }
         return null;
     }
 
+    @Override
+    public Void visitBreakStmt(Stmt.Break stmt) {
+        throw LoopControl.BREAK;
+    }
+
+    @Override
+    public Void visitContinueStmt(Stmt.Continue stmt) {
+        throw LoopControl.CONTINUE;
+    }
+
     @Override
     public Object visitAssignExpr(Assign expr) {
         Object value = evaluate(expr.value);
-        Integer distance = locals.get(expr);
 
-        if (distance != null)
-            env.assignAt(distance, expr.name, value);
-        else
+        if (expr.depth >= 0)
+            env.assignAt(expr.depth, expr.name, value);
+        else {
+            if (LoxMetrics.enabled)
+                LoxMetrics.GLOBAL_LOOKUPS.increment();
             global.assign(expr.name, value);
+        }
 
         return value;
     }
@@ -159,7 +456,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitFunctionStmt(Function stmt) {
         LoxCallable function = new LoxFunction(stmt, this.env, false);
-        env.define(stmt.name.lexeme, function);
+        env.define(stmt.name.symbol, function);
         return null;
     }
 
@@ -176,10 +473,28 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitPrintStmt(Print stmt) {
         Object value = evaluate(stmt.expression);
-        System.out.println(stringify(value));
+
+        if (Concurrency.enabled) {
+            // Keep a value and its newline together when tasks print at once
+            synchronized (out) {
+                print(value);
+            }
+        } else {
+            print(value);
+        }
+
         return null;
     }
 
+    private void print(Object value) {
+        if (value instanceof Double)
+            out.print((double) value);
+        else
+            out.print(stringify(value));
+
+        out.println();
+    }
+
     @Override
     public Void visitReturnStmt(Return stmt) {
         Object value = null;
@@ -189,6 +504,35 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         throw new jlox.Return(value);
     }
 
+    @Override
+    public Void visitImportStmt(Stmt.Import stmt) {
+        // Marked first, so modules that import each other run once each
+        if (imported.add(stmt.module))
+            executeBlock(Modules.get(stmt.module).statements, global);
+        return null;
+    }
+
+    @Override
+    public Void visitThrowStmt(Stmt.Throw stmt) {
+        Object value = evaluate(stmt.value);
+        throw new RuntimeError(stmt.keyword, stringify(value), value);
+    }
+
+    @Override
+    public Void visitTryStmt(Stmt.Try stmt) {
+        try {
+            execute(stmt.body);
+        } catch (BudgetExceededError e) {
+            // Budgets are for the host to enforce, so scripts must not be able to swallow them
+            throw e;
+        } catch (RuntimeError e) {
+            Environment handler = new Environment(env);
+            handler.define(stmt.name.symbol, e.value);
+            executeBlock(stmt.handler, handler);
+        }
+        return null;
+    }
+
     @Override
     public Object visitLiteralExpr(Literal literal) {
         return literal.value;
@@ -210,21 +554,35 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     }
 
     @Override
-    public Object visitSetExpr(Set expr) {
+    public Object visitSetExpr(Expr.Set expr) {
         Object object = evaluate(expr.object);
 
         if (!(object instanceof LoxInstance))
             throw new RuntimeError(expr.name, "Only instances have fields.");
 
         Object value = evaluate(expr.value);
-        ((LoxInstance) object).set(expr.name, value);
+        ((LoxInstance) object).set(expr.name, value, cache(expr.sites, expr.site));
 
         return value;
     }
 
+    @Override
+    public Object visitSuperExpr(Super expr) {
+        LoxClass superclass = (LoxClass) env.getAt(expr.depth, Symbol.SUPER);
+
+        // 'this' lives in the method's call scope, just inside the one holding 'super'
+        LoxInstance object = (LoxInstance) env.getAt(expr.depth - 1, Symbol.THIS);
+        LoxFunction method = superclass.findMethod(expr.method.symbol);
+
+        if (method == null)
+            throw new RuntimeError(expr.method, "Undefined property '" + expr.method.lexeme + "'.");
+
+        return method.bind(object);
+    }
+
     @Override
     public Object visitThisExpr(This expr) {
-        return lookUpVariable(expr.keyword, expr);
+        return lookUpVariable(expr.keyword, expr.depth);
     }
 
     @Override
@@ -250,15 +608,15 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitVariableExpr(Variable expr) {
-        return lookUpVariable(expr.name, expr);
+        return lookUpVariable(expr.name, expr.depth);
     }
 
-    private Object lookUpVariable(Token name, Expr expr) {
-        Integer distance = locals.get(expr);
-
-        if (distance != null) {
-            return env.getAt(distance, name.lexeme);
+    private Object lookUpVariable(Token name, int depth) {
+        if (depth >= 0) {
+            return env.getAt(depth, name.symbol);
         } else {
+            if (LoxMetrics.enabled)
+                LoxMetrics.GLOBAL_LOOKUPS.increment();
             return global.get(name);
         }
     }
@@ -278,13 +636,16 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         switch (binaryOp.op.type) {
             case TokenType.GREATER:
                 checkNumberOperands(binaryOp.op, lhs, rhs);
-                return (double) lhs < (double) rhs;
+                return (double) lhs > (double) rhs;
             case TokenType.GREATER_EQUAL:
-                return (double) lhs <= (double) rhs;
+                checkNumberOperands(binaryOp.op, lhs, rhs);
+                return (double) lhs >= (double) rhs;
             case TokenType.LESS:
-                return (double) lhs > (double) rhs;
+                checkNumberOperands(binaryOp.op, lhs, rhs);
+                return (double) lhs < (double) rhs;
             case TokenType.LESS_EQUAL:
-                return (double) lhs >= (double) rhs;
+                checkNumberOperands(binaryOp.op, lhs, rhs);
+                return (double) lhs <= (double) rhs;
             case TokenType.BANG_EQUAL:
                 return !isEqual(lhs, rhs);
             case TokenType.EQUAL_EQUAL:
@@ -292,8 +653,11 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             case TokenType.PLUS: {
                 if (lhs instanceof Double && rhs instanceof Double)
                     return (double) lhs + (double) rhs;
-                if (lhs instanceof String && rhs instanceof String)
-                    return (String) lhs + (String) rhs;
+                if (lhs instanceof String && rhs instanceof String) {
+                    String result = (String) lhs + (String) rhs;
+                    meter.allocate(STRING_BYTES + result.length(), binaryOp.op);
+                    return result;
+                }
 
                 throw new RuntimeError(binaryOp.op, "Operands must be two numbers or two strings");
             }
@@ -313,35 +677,140 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitCallExpr(Call expr) {
         Object calle = evaluate(expr.callee);
 
-        List<Object> arguments = new ArrayList<>();
+        return call(calle, expr.paren, evaluateArguments(expr.arguments));
+    }
+
+    @Override
+    public Object visitInvokeExpr(Invoke expr) {
+        Object object = evaluate(expr.object);
+
+        if (!(object instanceof LoxInstance))
+            throw new RuntimeError(expr.name, "Only instances have properties");
+
+        LoxInstance instance = (LoxInstance) object;
+        PropertyCache cache = cache(expr.sites, expr.site);
+        LoxFunction method = instance.findMethod(expr.name, cache);
+
+        // A field shadows any method of the same name and is called like any other value
+        if (method == null)
+            return call(instance.read(expr.name, cache), expr.paren, evaluateArguments(expr.arguments));
+
+        List<Object> arguments = evaluateArguments(expr.arguments);
+        checkArity(method, expr.paren, arguments);
+        meter.step(expr.paren);
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.CALLS.increment();
 
-        for (Expr argument : expr.arguments) {
+        if (frames != null)
+            frames.site = expr.paren.line;
+
+        try {
+            return method.invoke(this, instance, arguments);
+        } catch (RuntimeError e) {
+            e.unwind(method.name(), expr.paren);
+            throw e;
+        }
+    }
+
+    private List<Object> evaluateArguments(List<Expr> expressions) {
+        List<Object> arguments = new ArrayList<>(expressions.size());
+
+        for (Expr argument : expressions) {
             arguments.add(evaluate(argument));
         }
 
+        return arguments;
+    }
+
+    private Object call(Object calle, Token paren, List<Object> arguments) {
         if (!(calle instanceof LoxCallable))
-            throw new RuntimeError(expr.paren, "Can only call functions and classes");
+            throw new RuntimeError(paren, "Can only call functions and classes");
 
         LoxCallable function = (LoxCallable) calle;
+        checkArity(function, paren, arguments);
+        meter.step(paren);
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.CALLS.increment();
 
+        if (function instanceof LoxClass)
+            meter.allocate(INSTANCE_BYTES, paren);
+
+        if (frames != null)
+            frames.site = paren.line;
+
+        try {
+            return function.call(this, arguments);
+        } catch (NativeFunction.Error e) {
+            throw new RuntimeError(paren, e.getMessage(), e.value);
+        } catch (BudgetMeter.Expired e) {
+            throw new BudgetExceededError(paren, e.getMessage());
+        } catch (RuntimeError e) {
+            e.unwind(name(function), paren);
+            throw e;
+        }
+    }
+
+    /**
+     * Calls a function on behalf of a native, as the body of a task or a
+     * parallel callback. Errors record the function in their trace like
+     * errors from calls made in Lox code.
+     */
+    Object callBack(LoxCallable function, List<Object> arguments) {
+        if (frames != null)
+            frames.site = 0;
+
+        try {
+            return function.call(this, arguments);
+        } catch (RuntimeError e) {
+            // There is no call site in the script to point at
+            e.unwind(name(function), null);
+            throw e;
+        }
+    }
+
+    private static String name(LoxCallable function) {
+        if (function instanceof LoxFunction)
+            return ((LoxFunction) function).name();
+        if (function instanceof LoxClass)
+            return ((LoxClass) function).name;
+        return ((NativeFunction) function).name;
+    }
+
+    private void checkArity(LoxCallable function, Token paren, List<Object> arguments) {
         if (arguments.size() != function.arity())
-            throw new RuntimeError(expr.paren,
+            throw new RuntimeError(paren,
                     "Expected " + function.arity() + " arguments but got " + arguments.size() + ".");
-
-        return function.call(this, arguments);
     }
 
     @Override
     public Object visitGetExpr(Get expr) {
         Object object = evaluate(expr.object);
         if (object instanceof LoxInstance)
-            return ((LoxInstance) object).get(expr.name);
+            return ((LoxInstance) object).get(expr.name, cache(expr.sites, expr.site));
 
         throw new RuntimeError(expr.name, "Only instances have properties");
     }
 
+    private PropertyCache cache(Sites sites, int site) {
+        int index = System.identityHashCode(sites) & (RECENT_SITES - 1);
+        PropertyCache[] table = recentTables[index];
+        if (recentSites[index] != sites) {
+            table = sites.table(context);
+            recentSites[index] = sites;
+            recentTables[index] = table;
+        }
+
+        // Two threads may both fill an empty slot; the loser only misses once
+        PropertyCache cache = table[site];
+        if (cache == null)
+            table[site] = cache = new PropertyCache();
+        return cache;
+    }
+
     private void checkNumberOperands(Token op, Object lhs, Object rhs) {
-        if (lhs instanceof Double && lhs instanceof Double)
+        if (lhs instanceof Double && rhs instanceof Double)
             return;
 
         throw new RuntimeError(op, "Operands must be two numbers");
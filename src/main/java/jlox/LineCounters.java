@@ -0,0 +1,210 @@
+package jlox;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts how often the statements on each source line run and how long they
+ * take. Counters live in arrays indexed by line, one set for the script and
+ * one per imported module, so recording a statement allocates nothing. Time
+ * is inclusive: a line that calls a function or holds a loop also gets the
+ * time of everything run from it, counted once however deeply the line
+ * recurses. A for loop counts once per run on its own line, as does its
+ * initializer; the condition and increment are expressions and only add to
+ * the loop's time.
+ *
+ * Interpreters forked for tasks get their own LineCounters from fork. They
+ * add to the same counts, but track recursion on their own, as that is a
+ * property of one thread's calls. Updates to the counts are not atomic, so
+ * with tasks running they are approximate.
+ */
+final class LineCounters {
+    private final Tracker script;
+    private final Map<String, Counts> modules;
+    // This interpreter's trackers for the modules it has run
+    private final Map<String, Tracker> trackers = new HashMap<>();
+
+    LineCounters(int lines) {
+        this(new Counts(lines), new ConcurrentHashMap<>());
+    }
+
+    private LineCounters(Counts script, Map<String, Counts> modules) {
+        this.script = new Tracker(script);
+        this.modules = modules;
+    }
+
+    /**
+     * Returns counters for an interpreter forked from this one, adding to the
+     * same counts.
+     */
+    LineCounters fork() {
+        return new LineCounters(script.counts, modules);
+    }
+
+    void execute(Interpreter interpreter, Stmt stmt) {
+        Tracker tracker = stmt.module == null ? script : tracker(stmt.module);
+        tracker.execute(interpreter, stmt);
+    }
+
+    private Tracker tracker(String module) {
+        Tracker tracker = trackers.get(module);
+        if (tracker == null) {
+            Counts counts = modules.computeIfAbsent(module, key -> new Counts(script.counts.length() - 1));
+            tracker = new Tracker(counts);
+            trackers.put(module, tracker);
+        }
+        return tracker;
+    }
+
+    /**
+     * Prints the limit most executed lines, with their text if the source is
+     * known. The script's source is passed in; modules are read again.
+     */
+    void report(String source, int limit, PrintStream stream) {
+        List<Row> rows = new ArrayList<>();
+        script.counts.collect(null, text(source), rows);
+        for (Map.Entry<String, Counts> module : modules.entrySet())
+            module.getValue().collect(module.getKey(), text(read(module.getKey())), rows);
+
+        rows.sort((a, b) -> Long.compare(b.count, a.count));
+        rows = rows.subList(0, Math.min(limit, rows.size()));
+
+        int width = 6;
+        for (Row row : rows)
+            width = Math.max(width, row.location.length());
+
+        String header = "%" + width + "s %12s %12s  %s";
+        String format = "%" + width + "s %12d %12.3f  %s";
+        stream.println(String.format(header, "line", "count", "total ms", "source"));
+        for (Row row : rows)
+            stream.println(String.format(format, row.location, row.count, row.nanos / 1e6, row.code));
+    }
+
+    private static String[] text(String source) {
+        return source == null ? new String[0] : source.split("\r?\n", -1);
+    }
+
+    private static String read(String module) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(module)), Charset.defaultCharset());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Counts and times for one source file, shared by an interpreter and its forks
+    private static final class Counts {
+        private volatile Table table;
+
+        Counts(int lines) {
+            table = new Table(new long[lines + 1], new long[lines + 1]);
+        }
+
+        int length() {
+            return table.counts.length;
+        }
+
+        Table table(int line) {
+            Table current = table;
+            return line < current.counts.length ? current : grow(line);
+        }
+
+        // Both arrays are replaced in one write, so readers never see them with different lengths
+        private synchronized Table grow(int line) {
+            Table current = table;
+            if (line < current.counts.length)
+                return current;
+
+            int length = Math.max(line + 1, current.counts.length * 2);
+            table = new Table(Arrays.copyOf(current.counts, length), Arrays.copyOf(current.nanos, length));
+            return table;
+        }
+
+        void collect(String module, String[] text, List<Row> rows) {
+            Table table = this.table;
+            // Modules are labelled by file name, which is usually enough to tell them apart
+            Path file = module == null ? null : Paths.get(module).getFileName();
+
+            for (int line = 1; line < table.counts.length; line++) {
+                if (table.counts[line] == 0)
+                    continue;
+
+                String location = file == null ? Integer.toString(line) : file + ":" + line;
+                String code = line <= text.length ? text[line - 1].strip() : "";
+                rows.add(new Row(location, table.counts[line], table.nanos[line], code));
+            }
+        }
+    }
+
+    private static final class Table {
+        final long[] counts;
+        final long[] nanos;
+
+        Table(long[] counts, long[] nanos) {
+            this.counts = counts;
+            this.nanos = nanos;
+        }
+    }
+
+    // One interpreter's view of a Counts, with the lines it is inside of
+    private static final class Tracker {
+        final Counts counts;
+        // Activations of each line in progress on this thread, so recursion is timed once
+        private int[] active = new int[0];
+
+        Tracker(Counts counts) {
+            this.counts = counts;
+        }
+
+        void execute(Interpreter interpreter, Stmt stmt) {
+            int line = stmt.line;
+            Table table = counts.table(line);
+            if (line >= active.length)
+                active = Arrays.copyOf(active, table.counts.length);
+
+            table.counts[line]++;
+            if (active[line]++ > 0) {
+                try {
+                    stmt.accept(interpreter);
+                } finally {
+                    active[line]--;
+                }
+                return;
+            }
+
+            long start = System.nanoTime();
+
+            try {
+                stmt.accept(interpreter);
+            } finally {
+                // The body may have grown the table, so add to the current one
+                counts.table(line).nanos[line] += System.nanoTime() - start;
+                active[line]--;
+            }
+        }
+    }
+
+    private static final class Row {
+        final String location;
+        final long count;
+        final long nanos;
+        final String code;
+
+        Row(String location, long count, long nanos, String code) {
+            this.location = location;
+            this.count = count;
+            this.nanos = nanos;
+            this.code = code;
+        }
+    }
+}
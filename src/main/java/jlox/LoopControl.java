@@ -0,0 +1,15 @@
+package jlox;
+
+/**
+ * Thrown by break and continue to reach the innermost loop. There are only
+ * the two shared instances and they carry no stack trace, so leaving a loop
+ * early costs no allocation.
+ */
+final class LoopControl extends RuntimeException {
+    static final LoopControl BREAK = new LoopControl();
+    static final LoopControl CONTINUE = new LoopControl();
+
+    private LoopControl() {
+        super(null, null, false, false);
+    }
+}
@@ -5,90 +5,232 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Lox {
-    private static final Interpreter interpreter = new Interpreter();
-    static boolean hadError = false;
-    static boolean hadRuntimeError = false;
+    private static final ErrorReporter reporter = new ErrorReporter();
+    private static Interpreter interpreter;
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(64);
-        } else if (args.length == 1) {
-            runFile(args[0]);
+        if (args.length > 0 && args[0].equals("bench")) {
+            bench(Arrays.asList(args).subList(1, args.length));
+            return;
+        }
+
+        BufferedSink.FlushMode flushMode = null;
+        String outputPath = null;
+        int parallelism = 0;
+        int chunkSize = 0;
+        long maxSteps = 0;
+        long timeout = 0;
+        long maxMemory = 0;
+        String profilePath = null;
+        long profileInterval = 1000;
+        int lineCounts = 0;
+        boolean metrics = false;
+        String saveSnapshot = null;
+        String loadSnapshot = null;
+        String script = null;
+
+        for (String arg : args) {
+            if (arg.startsWith("--flush=")) {
+                flushMode = parseFlushMode(arg.substring("--flush=".length()));
+            } else if (arg.startsWith("--output=")) {
+                outputPath = arg.substring("--output=".length());
+            } else if (arg.startsWith("--parallelism=")) {
+                parallelism = parseCount(arg.substring("--parallelism=".length()));
+            } else if (arg.startsWith("--chunk-size=")) {
+                chunkSize = parseCount(arg.substring("--chunk-size=".length()));
+            } else if (arg.startsWith("--max-steps=")) {
+                maxSteps = parseLimit(arg.substring("--max-steps=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = parseLimit(arg.substring("--timeout=".length()));
+            } else if (arg.startsWith("--max-memory=")) {
+                maxMemory = parseLimit(arg.substring("--max-memory=".length()));
+            } else if (arg.startsWith("--profile=")) {
+                profilePath = arg.substring("--profile=".length());
+            } else if (arg.startsWith("--profile-interval=")) {
+                profileInterval = Math.max(1, parseLimit(arg.substring("--profile-interval=".length())));
+            } else if (arg.startsWith("--save-snapshot=")) {
+                saveSnapshot = arg.substring("--save-snapshot=".length());
+            } else if (arg.startsWith("--load-snapshot=")) {
+                loadSnapshot = arg.substring("--load-snapshot=".length());
+            } else if (arg.equals("--metrics")) {
+                metrics = true;
+            } else if (arg.equals("--line-counts")) {
+                lineCounts = 20;
+            } else if (arg.startsWith("--line-counts=")) {
+                lineCounts = parseCount(arg.substring("--line-counts=".length()));
+            } else if (script == null && !arg.startsWith("--")) {
+                script = arg;
+            } else {
+                usage();
+            }
+        }
+
+        // A session is long-lived enough to be worth watching over JMX
+        if (metrics || script == null)
+            LoxMetrics.register();
+
+        // An interactive session wants every line as soon as it is printed
+        if (flushMode == null)
+            flushMode = script == null ? BufferedSink.FlushMode.LINE : BufferedSink.FlushMode.SIZE;
+
+        OutputSink out = outputPath == null
+                ? BufferedSink.stdout(flushMode)
+                : BufferedSink.file(Paths.get(outputPath), flushMode);
+        interpreter = new Interpreter(reporter, out);
+        interpreter.setParallelism(parallelism);
+        interpreter.setChunkSize(chunkSize);
+        interpreter.setBudget(new Budget(maxSteps, timeout, maxMemory));
+
+        if (loadSnapshot != null)
+            interpreter.loadSnapshot(Paths.get(loadSnapshot));
+
+        Profiler profiler = null;
+        if (profilePath != null) {
+            profiler = new Profiler(profileInterval);
+            interpreter.profile(profiler);
+            profiler.start();
+        }
+
+        LineCounters lines = null;
+        if (lineCounts > 0) {
+            lines = new LineCounters(1024);
+            interpreter.countLines(lines);
+        }
+
+        String source = null;
+        if (script != null) {
+            source = runFile(script);
         } else {
             runPrompt();
         }
-    }
 
-    private static void runFile(String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
+        if (profiler != null) {
+            profiler.stop();
+            profiler.writeCollapsed(Paths.get(profilePath));
+            profiler.writeTable(System.err);
+        }
 
-        if (hadError)
+        if (lines != null)
+            lines.report(source, lineCounts, System.err);
+
+        if (saveSnapshot != null && !reporter.hadError() && !reporter.hadRuntimeError())
+            interpreter.saveSnapshot(Paths.get(saveSnapshot));
+
+        if (reporter.hadError())
             System.exit(65);
 
-        if (hadRuntimeError)
+        if (reporter.hadRuntimeError())
             System.exit(70);
     }
 
-    private static void runPrompt() throws IOException {
-        InputStreamReader input = new InputStreamReader(System.in);
-        BufferedReader reader = new BufferedReader(input);
-
-        for (;;) {
-            System.out.print("> ");
-            String line = reader.readLine();
-            if (line == null)
-                return;
-            run(line);
-            hadError = false;
+    private static void bench(List<String> args) throws IOException {
+        int warmup = 3;
+        int iterations = 5;
+        List<String> programs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--warmup=")) {
+                warmup = parseCount(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = parseCount(arg.substring("--iterations=".length()));
+            } else if (!arg.startsWith("--")) {
+                programs.add(arg);
+            } else {
+                usage();
+            }
         }
-    }
 
-    private static void run(String source) {
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
-        Parser parser = new Parser(tokens);
+        StringBuilder json = new StringBuilder();
+        boolean ok = new BenchRunner(warmup, iterations).run(programs, json);
+        System.out.print(json);
+        System.out.flush();
 
-        List<Stmt> statements = parser.parse();
+        if (!ok)
+            System.exit(70);
+    }
 
-        // Stop if there are parsing errors
-        if (hadError)
-            return;
+    private static BufferedSink.FlushMode parseFlushMode(String mode) {
+        switch (mode) {
+            case "exit":
+                return BufferedSink.FlushMode.EXIT;
+            case "size":
+                return BufferedSink.FlushMode.SIZE;
+            case "line":
+                return BufferedSink.FlushMode.LINE;
+            default:
+                usage();
+                return null;
+        }
+    }
 
-        Resolver resolver = new Resolver(interpreter);
-        resolver.resolve(statements);
+    private static int parseCount(String count) {
+        try {
+            int value = Integer.parseInt(count);
+            if (value >= 0)
+                return value;
+        } catch (NumberFormatException e) {
+        }
 
-        // Stop if there are resolution errors
-        if (hadError)
-            return;
+        usage();
+        return 0;
+    }
 
-        interpreter.interpret(statements);
+    private static long parseLimit(String limit) {
+        try {
+            long value = Long.parseLong(limit);
+            if (value >= 0)
+                return value;
+        } catch (NumberFormatException e) {
+        }
+
+        usage();
+        return 0;
     }
 
-    public static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + "\n[line" + error.token.line + "]");
-        hadRuntimeError = true;
+    private static void usage() {
+        System.out.println("Usage: jlox [--flush=exit|size|line] [--output=file] [--parallelism=n] [--chunk-size=n]"
+                + " [--max-steps=n] [--timeout=ms] [--max-memory=bytes]"
+                + " [--profile=file] [--profile-interval=us] [--line-counts[=n]] [--metrics]"
+                + " [--save-snapshot=file] [--load-snapshot=file] [script]");
+        System.out.println("       jlox bench [--warmup=n] [--iterations=n] [script...]");
+        System.exit(64);
     }
 
-    public static void error(int line, String message) {
-        report(line, "", message);
+    private static String runFile(String path) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(path));
+        String source = new String(bytes, Charset.defaultCharset());
+        run(source, Paths.get(path));
+        return source;
     }
 
-    public static void error(Token token, String message) {
-        if (token.type == TokenType.EOF)
-            report(token.line, " at end", message);
-        else
-            report(token.line, " at '" + token.lexeme + "'", message);
+    private static void runPrompt() throws IOException {
+        InputStreamReader input = new InputStreamReader(System.in);
+        BufferedReader reader = new BufferedReader(input);
+
+        OutputSink out = interpreter.output();
+
+        for (;;) {
+            out.print("> ");
+            out.flush();
+            String line = reader.readLine();
+            if (line == null)
+                return;
+            run(line, null);
+            reporter.reset();
+        }
     }
 
-    private static void report(int line, String where, String message) {
-        System.err.println(
-                "[line " + line + "] Error " + where + ": " + message);
-        hadError = true;
+    private static void run(String source, Path origin) {
+        Program program = Program.compile(source, origin, reporter);
+
+        if (program != null)
+            interpreter.run(program);
     }
 }
@@ -1,30 +1,42 @@
 package jlox;
 
+import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class LoxClass implements LoxCallable {
+public class LoxClass implements LoxCallable, Serializable {
     final String name;
-    final Map<String, LoxFunction> methods;
-
-    public LoxClass(String name, Map<String, LoxFunction> methods) {
+    final LoxClass superclass;
+    // Own methods plus every inherited one, so lookups never walk the hierarchy
+    final Map<Symbol, LoxFunction> methods;
+    final Shape rootShape = Shape.root();
+    // How many fields instances tend to end up with. Only a sizing hint, so races are harmless
+    int expectedFields = 0;
+
+    public LoxClass(String name, LoxClass superclass, Map<Symbol, LoxFunction> methods) {
         this.name = name;
-        this.methods = methods;
+        this.superclass = superclass;
+
+        if (superclass == null) {
+            this.methods = methods;
+        } else {
+            this.methods = new HashMap<>(superclass.methods);
+            this.methods.putAll(methods);
+        }
     }
 
-    public LoxFunction findMethod(String name) {
-        if (methods.containsKey(name))
-            return methods.get(name);
-        return null;
+    public LoxFunction findMethod(Symbol name) {
+        return methods.get(name);
     }
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
         LoxInstance instance = new LoxInstance(this);
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findMethod(Symbol.INIT);
 
         if (initializer != null) {
-            initializer.bind(instance).call(interpreter, arguments);
+            initializer.invoke(interpreter, instance, arguments);
         }
 
         return instance;
@@ -32,7 +44,7 @@ public class LoxClass implements LoxCallable {
 
     @Override
     public int arity() {
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findMethod(Symbol.INIT);
         if (initializer != null)
             return initializer.arity();
         return 0;
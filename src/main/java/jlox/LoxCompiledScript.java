@@ -0,0 +1,30 @@
+package jlox;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A script that has already been through the front end. Evaluating it again
+ * only runs the interpreter.
+ */
+class LoxCompiledScript extends CompiledScript {
+    private final Program program;
+    private final LoxScriptEngine engine;
+
+    LoxCompiledScript(Program program, LoxScriptEngine engine) {
+        this.program = program;
+        this.engine = engine;
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        return engine.eval(program, context);
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+}
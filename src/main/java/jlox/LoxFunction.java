@@ -1,16 +1,24 @@
 package jlox;
 
+import java.io.Serializable;
 import java.util.List;
 
-public class LoxFunction implements LoxCallable {
+public class LoxFunction implements LoxCallable, Serializable {
     private final Environment closure;
     private final Stmt.Function declaration;
     private final boolean isInitializer;
+    private final LoxInstance receiver;
 
     public LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+        this(declaration, closure, isInitializer, null);
+    }
+
+    private LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer,
+            LoxInstance receiver) {
         this.isInitializer = isInitializer;
         this.closure = closure;
         this.declaration = declaration;
+        this.receiver = receiver;
     }
 
     @Override
@@ -20,29 +28,54 @@ public class LoxFunction implements LoxCallable {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
+        return invoke(interpreter, receiver, arguments);
+    }
+
+    /**
+     * Runs the function with the given receiver as 'this'. Methods called
+     * directly on an instance come through here without being bound first.
+     */
+    Object invoke(Interpreter interpreter, LoxInstance receiver, List<Object> arguments) {
         Environment env = new Environment(closure);
 
+        if (receiver != null)
+            env.define(Symbol.THIS, receiver);
+
         for (int i = 0; i < declaration.params.size(); i++)
-            env.define(declaration.params.get(i).lexeme, arguments.get(i));
+            env.define(declaration.params.get(i).symbol, arguments.get(i));
+
+        Profiler.Stack frames = interpreter.frames;
+        if (frames != null)
+            frames.push(declaration.name.lexeme);
+
+        Object event = Events.enabled ? Events.beginCall() : null;
 
         try {
             interpreter.executeBlock(declaration.body, env);
         } catch (Return returnVale) {
             if (isInitializer)
-                return closure.getAt(0, "this");
+                return receiver;
             return returnVale.value;
+        } finally {
+            if (frames != null)
+                frames.pop();
+
+            if (event != null)
+                Events.endCall(event, declaration.name);
         }
 
         if (isInitializer)
-            return closure.getAt(0, "this");
+            return receiver;
 
         return null;
     }
 
+    String name() {
+        return declaration.name.lexeme;
+    }
+
     public LoxFunction bind(LoxInstance instance) {
-        Environment env = new Environment(closure);
-        env.define("this", instance);
-        return new LoxFunction(declaration, env, isInitializer);
+        return new LoxFunction(declaration, closure, isInitializer, instance);
     }
 
     @Override
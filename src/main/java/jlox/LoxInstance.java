@@ -1,30 +1,173 @@
 package jlox;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Serializable;
+import java.util.Arrays;
+
+public class LoxInstance implements Serializable {
+    private static final Object[] NO_FIELDS = {};
 
-public class LoxInstance {
     private LoxClass klass;
-    private final Map<String, Object> fields = new HashMap<>();
+    private Shape shape;
+    private Object[] fields;
 
     public LoxInstance(LoxClass klass) {
         this.klass = klass;
+        this.shape = klass.rootShape;
+
+        // Size the array for the fields earlier instances of the class ended up with
+        int expected = klass.expectedFields;
+        this.fields = expected == 0 ? NO_FIELDS : new Object[expected];
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.INSTANCES.increment();
     }
 
     public Object get(Token name) {
-        if (fields.containsKey(name.lexeme))
-            return fields.get(name.lexeme);
+        return get(name, null);
+    }
 
-        LoxFunction method = klass.findMethod(name.lexeme);
+    Object get(Token name, PropertyCache cache) {
+        if (LoxMetrics.enabled)
+            LoxMetrics.PROPERTY_LOOKUPS.increment();
 
-        if (method != null)
+        return read(name, cache);
+    }
+
+    // Like get, for a lookup findMethod has already counted
+    Object read(Token name, PropertyCache cache) {
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                return lookup(name, cache);
+            }
+        }
+
+        return lookup(name, cache);
+    }
+
+    private Object lookup(Token name, PropertyCache cache) {
+        if (cache != null) {
+            PropertyCache.Entry entry = cache.find(shape);
+
+            if (entry != null) {
+                if (entry.method == null)
+                    return fields[entry.slot];
+                return entry.method.bind(this);
+            }
+        }
+
+        int slot = shape.slot(name.symbol);
+
+        if (slot >= 0) {
+            if (cache != null)
+                cache.remember(shape, slot, null, null);
+            return fields[slot];
+        }
+
+        LoxFunction method = klass.findMethod(name.symbol);
+
+        if (method != null) {
+            if (cache != null)
+                cache.remember(shape, -1, method, null);
             return method.bind(this);
+        }
 
         throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
     }
 
+    /**
+     * Returns the method a property access would bind, or null if the
+     * property is a field (or missing) and has to be read with read.
+     */
+    LoxFunction findMethod(Token name, PropertyCache cache) {
+        if (LoxMetrics.enabled)
+            LoxMetrics.PROPERTY_LOOKUPS.increment();
+
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                return methodFor(name, cache);
+            }
+        }
+
+        return methodFor(name, cache);
+    }
+
+    private LoxFunction methodFor(Token name, PropertyCache cache) {
+        PropertyCache.Entry entry = cache.find(shape);
+
+        if (entry != null)
+            return entry.method;
+
+        int slot = shape.slot(name.symbol);
+
+        if (slot >= 0) {
+            cache.remember(shape, slot, null, null);
+            return null;
+        }
+
+        LoxFunction method = klass.findMethod(name.symbol);
+
+        if (method != null)
+            cache.remember(shape, -1, method, null);
+
+        return method;
+    }
+
     public void set(Token name, Object value) {
-        fields.put(name.lexeme, value);
+        set(name, value, null);
+    }
+
+    void set(Token name, Object value, PropertyCache cache) {
+        if (LoxMetrics.enabled)
+            LoxMetrics.PROPERTY_LOOKUPS.increment();
+
+        if (Concurrency.enabled) {
+            synchronized (this) {
+                store(name.symbol, value, cache);
+            }
+            return;
+        }
+
+        store(name.symbol, value, cache);
+    }
+
+    private void store(Symbol name, Object value, PropertyCache cache) {
+        if (cache != null) {
+            PropertyCache.Entry entry = cache.find(shape);
+
+            if (entry != null) {
+                if (entry.transition != null)
+                    grow(entry.slot, entry.transition);
+                fields[entry.slot] = value;
+                return;
+            }
+        }
+
+        int slot = shape.slot(name);
+
+        if (slot >= 0) {
+            if (cache != null)
+                cache.remember(shape, slot, null, null);
+        } else {
+            Shape before = shape;
+            slot = shape.size;
+            grow(slot, shape.with(name));
+
+            if (cache != null)
+                cache.remember(before, slot, null, shape);
+        }
+
+        fields[slot] = value;
+    }
+
+    private void grow(int slot, Shape next) {
+        shape = next;
+
+        if (slot >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(slot + 1, fields.length * 2));
+
+            if (next.size > klass.expectedFields)
+                klass.expectedFields = next.size;
+        }
     }
 
     @Override
@@ -0,0 +1,133 @@
+package jlox;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters behind the JMX MBean. Nothing is counted until the MBean is
+ * registered, so a one-off script run pays only for reading the flag. The
+ * counters are LongAdders so interpreters on many threads do not contend.
+ */
+public final class LoxMetrics implements LoxMetricsMBean {
+    static final String NAME = "jlox:type=Metrics";
+
+    static volatile boolean enabled = false;
+
+    static final LongAdder CALLS = new LongAdder();
+    static final LongAdder ENVIRONMENTS = new LongAdder();
+    static final LongAdder INSTANCES = new LongAdder();
+    static final LongAdder GLOBAL_LOOKUPS = new LongAdder();
+    static final LongAdder PROPERTY_LOOKUPS = new LongAdder();
+    static final LongAdder CACHE_HITS = new LongAdder();
+    static final LongAdder CACHE_MISSES = new LongAdder();
+    static final LongAdder RUNTIME_ERRORS = new LongAdder();
+    static final LongAdder SCRIPTS_COMPILED = new LongAdder();
+    static final LongAdder SCRIPTS_REUSED = new LongAdder();
+
+    private LoxMetrics() {
+    }
+
+    /**
+     * Registers the MBean with the platform MBean server and starts counting.
+     * Registering more than once is harmless.
+     */
+    public static synchronized void register() {
+        if (enabled)
+            return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new LoxMetrics(), new ObjectName(NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another class loader got there first, which is fine
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + NAME, e);
+        }
+
+        enabled = true;
+    }
+
+    /**
+     * Counts a run of the program, which is a reuse if it has run before.
+     */
+    static void ran(Program program) {
+        if (program.ran.getAndSet(true))
+            SCRIPTS_REUSED.increment();
+    }
+
+    @Override
+    public long getCalls() {
+        return CALLS.sum();
+    }
+
+    @Override
+    public long getEnvironments() {
+        return ENVIRONMENTS.sum();
+    }
+
+    @Override
+    public long getInstances() {
+        return INSTANCES.sum();
+    }
+
+    @Override
+    public long getGlobalLookups() {
+        return GLOBAL_LOOKUPS.sum();
+    }
+
+    @Override
+    public long getPropertyLookups() {
+        return PROPERTY_LOOKUPS.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return CACHE_HITS.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return CACHE_MISSES.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = CACHE_HITS.sum();
+        long total = hits + CACHE_MISSES.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getRuntimeErrors() {
+        return RUNTIME_ERRORS.sum();
+    }
+
+    @Override
+    public long getScriptsCompiled() {
+        return SCRIPTS_COMPILED.sum();
+    }
+
+    @Override
+    public long getScriptsReused() {
+        return SCRIPTS_REUSED.sum();
+    }
+
+    @Override
+    public void reset() {
+        CALLS.reset();
+        ENVIRONMENTS.reset();
+        INSTANCES.reset();
+        GLOBAL_LOOKUPS.reset();
+        PROPERTY_LOOKUPS.reset();
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        RUNTIME_ERRORS.reset();
+        SCRIPTS_COMPILED.reset();
+        SCRIPTS_REUSED.reset();
+    }
+}
@@ -0,0 +1,31 @@
+package jlox;
+
+/**
+ * Live interpreter counters, exported over JMX as jlox:type=Metrics. Counts
+ * cover every interpreter in the JVM since registration or the last reset.
+ */
+public interface LoxMetricsMBean {
+    long getCalls();
+
+    long getEnvironments();
+
+    long getInstances();
+
+    long getGlobalLookups();
+
+    long getPropertyLookups();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRate();
+
+    long getRuntimeErrors();
+
+    long getScriptsCompiled();
+
+    long getScriptsReused();
+
+    void reset();
+}
@@ -0,0 +1,225 @@
+package jlox;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+/**
+ * javax.script front end. Every ENGINE_SCOPE bindings object created by this
+ * engine is the global environment of its own interpreter, so scripts
+ * evaluated against different bindings are fully isolated.
+ */
+public class LoxScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
+    private final LoxScriptEngineFactory factory;
+
+    LoxScriptEngine(LoxScriptEngineFactory factory) {
+        this.factory = factory;
+        setBindings(createBindings(), ScriptContext.ENGINE_SCOPE);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        WriterSink out = new WriterSink(new PrintWriter(System.out));
+        return new GlobalBindings(new Interpreter(new ErrorReporter(null), out));
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return eval(compileProgram(script, context), context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return new LoxCompiledScript(compileProgram(script, context), this);
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    Object eval(Program program, ScriptContext context) throws ScriptException {
+        Interpreter interpreter = interpreterFor(context);
+        ((WriterSink) interpreter.output()).target(context.getWriter());
+
+        try {
+            return interpreter.eval(program);
+        } catch (RuntimeError e) {
+            throw scriptException(e, context);
+        }
+    }
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        Interpreter interpreter = interpreterFor(context);
+        Symbol symbol = Symbol.lookup(name);
+        Object function = symbol == null ? null : interpreter.global.values().get(symbol);
+
+        if (!(function instanceof LoxCallable))
+            throw new NoSuchMethodException(name);
+
+        return call(interpreter, (LoxCallable) function, args);
+    }
+
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args)
+            throws ScriptException, NoSuchMethodException {
+        if (!(thiz instanceof LoxInstance))
+            throw new IllegalArgumentException("Methods can only be invoked on Lox instances.");
+
+        Interpreter interpreter = interpreterFor(context);
+        Object method;
+
+        try {
+            method = ((LoxInstance) thiz).get(new Token(TokenType.IDENTIFIER, name, null, 0, Symbol.of(name)));
+        } catch (RuntimeError e) {
+            throw new NoSuchMethodException(name);
+        }
+
+        if (!(method instanceof LoxCallable))
+            throw new NoSuchMethodException(name);
+
+        return call(interpreter, (LoxCallable) method, args);
+    }
+
+    @Override
+    public <T> T getInterface(Class<T> clasz) {
+        Bindings globals = new GlobalBindings(interpreterFor(context));
+
+        for (Method method : clasz.getMethods()) {
+            if (!(globals.get(method.getName()) instanceof LoxCallable))
+                return null;
+        }
+
+        return proxy(clasz, (method, args) -> invokeFunction(method.getName(), args));
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> clasz) {
+        if (!(thiz instanceof LoxInstance))
+            throw new IllegalArgumentException("Interfaces can only be implemented by Lox instances.");
+
+        return proxy(clasz, (method, args) -> invokeMethod(thiz, method.getName(), args));
+    }
+
+    private interface Dispatch {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> clasz, Dispatch dispatch) {
+        if (!clasz.isInterface())
+            throw new IllegalArgumentException(clasz.getName() + " is not an interface.");
+
+        Object proxy = Proxy.newProxyInstance(clasz.getClassLoader(), new Class<?>[] { clasz },
+                (self, method, args) -> dispatch.invoke(method, args == null ? new Object[0] : args));
+
+        return clasz.cast(proxy);
+    }
+
+    private Object call(Interpreter interpreter, LoxCallable function, Object[] args) throws ScriptException {
+        if (args.length != function.arity())
+            throw new ScriptException("Expected " + function.arity() + " arguments but got " + args.length + ".");
+
+        List<Object> arguments = new ArrayList<>(args.length);
+        for (Object arg : args)
+            arguments.add(toLox(arg));
+
+        try {
+            interpreter.resetBudget();
+            return function.call(interpreter, arguments);
+        } catch (RuntimeError e) {
+            throw scriptException(e, context);
+        } finally {
+            interpreter.output().flush();
+        }
+    }
+
+    private Program compileProgram(String script, ScriptContext context) throws ScriptException {
+        ErrorReporter reporter = new ErrorReporter(null);
+        Program program = Program.compile(script, reporter);
+
+        if (program == null)
+            throw new ScriptException(String.join("\n", reporter.messages()), fileName(context), -1);
+
+        return program;
+    }
+
+    /**
+     * Bindings made by createBindings are used in place. Any other ENGINE_SCOPE
+     * bindings are copied into a fresh interpreter for the duration of the call.
+     */
+    private Interpreter interpreterFor(ScriptContext context) {
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+
+        if (bindings instanceof GlobalBindings)
+            return ((GlobalBindings) bindings).interpreter;
+
+        GlobalBindings globals = (GlobalBindings) createBindings();
+        if (bindings != null)
+            globals.putAll(bindings);
+
+        return globals.interpreter;
+    }
+
+    private static ScriptException scriptException(RuntimeError error, ScriptContext context) {
+        Events.runtimeError(error);
+        if (LoxMetrics.enabled)
+            LoxMetrics.RUNTIME_ERRORS.increment();
+        return new ScriptException(error.getMessage(), fileName(context), error.token.line);
+    }
+
+    private static String fileName(ScriptContext context) {
+        Object name = context == null ? null : context.getAttribute(ScriptEngine.FILENAME);
+        return name == null ? null : name.toString();
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringBuilder source = new StringBuilder();
+        char[] chunk = new char[8192];
+
+        try {
+            for (int n; (n = reader.read(chunk)) != -1;)
+                source.append(chunk, 0, n);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+
+        return source.toString();
+    }
+
+    // Lox only knows doubles, so host numbers are widened on the way in
+    static Object toLox(Object value) {
+        if (value instanceof Double)
+            return value;
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+        if (value instanceof Character)
+            return value.toString();
+
+        return value;
+    }
+}
@@ -0,0 +1,126 @@
+package jlox;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of compiled modules, keyed by absolute path. A module
+ * is compiled once and the resulting Program is shared by every script and
+ * interpreter that imports it.
+ *
+ * Compiling a program starts loading its imports on the common pool right
+ * away, and every module does the same for its own imports, so independent
+ * files are scanned, parsed and resolved in parallel. Only the top-level
+ * compile waits, once the whole import graph has been started.
+ */
+final class Modules {
+    private static final ConcurrentHashMap<String, CompletableFuture<Program>> cache = new ConcurrentHashMap<>();
+
+    private Modules() {
+    }
+
+    /**
+     * Returns the absolute path an import refers to. Relative paths are
+     * relative to the directory of the importing file, or to the working
+     * directory if the source did not come from a file. Throws
+     * InvalidPathException if the path is not valid on this system.
+     */
+    static String resolve(String path, Path origin) {
+        Path base = origin == null ? Paths.get("") : origin.toAbsolutePath().getParent();
+        return base.resolve(path).toAbsolutePath().normalize().toString();
+    }
+
+    static void start(List<String> paths) {
+        for (String path : paths)
+            load(path);
+    }
+
+    /**
+     * Waits until every module the program imports, directly or through
+     * other modules, is compiled. Errors in any of them are added to the
+     * reporter; returns false if there were some.
+     */
+    static boolean await(Program program, ErrorReporter reporter) {
+        Set<String> seen = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(program.imports);
+        boolean ok = true;
+
+        while (!pending.isEmpty()) {
+            String path = pending.pop();
+            if (!seen.add(path))
+                continue;
+
+            CompletableFuture<Program> module = load(path);
+
+            try {
+                pending.addAll(module.join().imports);
+            } catch (CompletionException e) {
+                // Forget the failure so a fixed file is compiled again next time
+                cache.remove(path, module);
+                reporter.error(path, messages(e.getCause()));
+                ok = false;
+            }
+        }
+
+        return ok;
+    }
+
+    /**
+     * Returns a module that await has already seen compile successfully.
+     */
+    static Program get(String path) {
+        return load(path).join();
+    }
+
+    private static List<String> messages(Throwable failure) {
+        if (failure instanceof Failure)
+            return ((Failure) failure).messages;
+        return List.of("Can't compile module: " + failure);
+    }
+
+    private static CompletableFuture<Program> load(String path) {
+        CompletableFuture<Program> module = cache.get(path);
+        if (module != null)
+            return module;
+
+        return cache.computeIfAbsent(path, key -> CompletableFuture.supplyAsync(() -> compile(key)));
+    }
+
+    private static Program compile(String path) {
+        String source;
+
+        try {
+            source = new String(Files.readAllBytes(Paths.get(path)), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new Failure(List.of("Can't read module: " + e.getMessage()));
+        }
+
+        ErrorReporter reporter = new ErrorReporter(null);
+        Program program = Program.compileAsync(source, Paths.get(path), path, reporter);
+
+        if (program == null)
+            throw new Failure(reporter.messages());
+
+        return program;
+    }
+
+    private static final class Failure extends RuntimeException {
+        final List<String> messages;
+
+        Failure(List<String> messages) {
+            super(null, null, false, false);
+            this.messages = messages;
+        }
+    }
+}
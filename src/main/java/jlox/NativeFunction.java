@@ -0,0 +1,57 @@
+package jlox;
+
+import java.util.List;
+
+/**
+ * A built-in function implemented in Java. Natives hold no state of their
+ * own; everything they touch comes in through the calling interpreter, so
+ * one instance can be shared by every interpreter.
+ */
+class NativeFunction implements LoxCallable {
+    interface Body {
+        Object call(Interpreter interpreter, List<Object> arguments);
+    }
+
+    /**
+     * Thrown by a native body for bad input. The interpreter reports it at the
+     * call site, which the native itself does not know.
+     */
+    static class Error extends RuntimeException {
+        // What a catch clause receives
+        final Object value;
+
+        Error(String message) {
+            this(message, message);
+        }
+
+        Error(String message, Object value) {
+            super(message, null, false, false);
+            this.value = value;
+        }
+    }
+
+    final String name;
+    private final int arity;
+    private final Body body;
+
+    NativeFunction(String name, int arity, Body body) {
+        this.name = name;
+        this.arity = arity;
+        this.body = body;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return body.call(interpreter, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
@@ -0,0 +1,27 @@
+package jlox;
+
+/**
+ * Sink that throws output away. Numbers are still formatted so that a
+ * benchmark pays for the same work a real run would, minus the I/O.
+ */
+final class NullSink implements OutputSink {
+    private final StringBuilder scratch = new StringBuilder();
+
+    @Override
+    public void print(String text) {
+    }
+
+    @Override
+    public synchronized void print(double number) {
+        NumberFormatter.format(number, scratch);
+        scratch.setLength(0);
+    }
+
+    @Override
+    public void println() {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
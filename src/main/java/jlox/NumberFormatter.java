@@ -0,0 +1,36 @@
+package jlox;
+
+/**
+ * Formats Lox numbers exactly like Double.toString with a trailing ".0"
+ * stripped, but appends the digits straight into the caller's buffer.
+ */
+final class NumberFormatter {
+    // Double.toString switches to scientific notation from here on
+    private static final double PLAIN_LIMIT = 1e7;
+
+    private NumberFormatter() {
+    }
+
+    static void format(double value, StringBuilder out) {
+        // Integral values print as plain digits; -0 takes the slow path to keep its sign
+        if (value == (long) value && Math.abs(value) < PLAIN_LIMIT && (value != 0 || 1 / value > 0)) {
+            out.append((long) value);
+            return;
+        }
+
+        // StringBuilder.append(double) uses the JDK's shortest round-trip conversion
+        // and writes into the builder without creating an intermediate String
+        int start = out.length();
+        out.append(value);
+        int end = out.length();
+
+        if (end - start > 2 && out.charAt(end - 2) == '.' && out.charAt(end - 1) == '0')
+            out.setLength(end - 2);
+    }
+
+    static String format(double value) {
+        StringBuilder out = new StringBuilder(24);
+        format(value, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package jlox;
+
+public interface OutputSink {
+    void print(String text);
+
+    void print(double number);
+
+    void println();
+
+    void flush();
+}
@@ -0,0 +1,190 @@
+package jlox;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Data-parallel natives over the index range [0, n). Work is split into
+ * chunks on the interpreter's ForkJoinPool and every chunk runs in its own
+ * forked interpreter. Callbacks should be pure: they may read shared state
+ * but must not depend on the order in which indexes run.
+ */
+final class Parallel {
+    private Parallel() {
+    }
+
+    /**
+     * parallelMap(fn, n) calls fn(i) for every index and returns a channel
+     * holding the n results in index order.
+     */
+    static final NativeFunction MAP = new NativeFunction("parallelMap", 2, (interpreter, arguments) -> {
+        LoxCallable function = callable(arguments.get(0), 1, "parallelMap");
+        int count = count(arguments.get(1));
+        Object[] results = new Object[count];
+
+        Concurrency.enabled = true;
+        run(interpreter, new MapChunk(interpreter, function, results, 0, count, chunkSize(interpreter, count)));
+
+        Concurrency.LoxChannel channel = new Concurrency.LoxChannel(Math.max(count, 1));
+        try {
+            for (Object result : results)
+                channel.send(result, interpreter.meter());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeFunction.Error("Interrupted while collecting results.");
+        }
+
+        return channel;
+    });
+
+    /**
+     * parallelReduce(fn, combine, n, identity) folds fn(i) for every index with
+     * combine, which must be associative with identity as its neutral value.
+     */
+    static final NativeFunction REDUCE = new NativeFunction("parallelReduce", 4, (interpreter, arguments) -> {
+        LoxCallable function = callable(arguments.get(0), 1, "parallelReduce");
+        LoxCallable combine = callable(arguments.get(1), 2, "parallelReduce");
+        int count = count(arguments.get(2));
+        Object identity = arguments.get(3);
+
+        Concurrency.enabled = true;
+        return run(interpreter, new ReduceChunk(interpreter, function, combine, identity, 0, count,
+                chunkSize(interpreter, count)));
+    });
+
+    private static final class MapChunk extends RecursiveAction {
+        private final Interpreter interpreter;
+        private final LoxCallable function;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        MapChunk(Interpreter interpreter, LoxCallable function, Object[] results, int from, int to, int chunkSize) {
+            this.interpreter = interpreter;
+            this.function = function;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MapChunk(interpreter, function, results, from, middle, chunkSize),
+                        new MapChunk(interpreter, function, results, middle, to, chunkSize));
+                return;
+            }
+
+            Interpreter worker = interpreter.fork();
+            for (int i = from; i < to; i++)
+                results[i] = worker.callBack(function, List.of((double) i));
+        }
+    }
+
+    private static final class ReduceChunk extends RecursiveTask<Object> {
+        private final Interpreter interpreter;
+        private final LoxCallable function;
+        private final LoxCallable combine;
+        private final Object identity;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ReduceChunk(Interpreter interpreter, LoxCallable function, LoxCallable combine, Object identity, int from,
+                int to, int chunkSize) {
+            this.interpreter = interpreter;
+            this.function = function;
+            this.combine = combine;
+            this.identity = identity;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Object compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                ReduceChunk left = new ReduceChunk(interpreter, function, combine, identity, from, middle,
+                        chunkSize);
+                ReduceChunk right = new ReduceChunk(interpreter, function, combine, identity, middle, to,
+                        chunkSize);
+
+                left.fork();
+                Object rightResult = right.compute();
+                Object leftResult = left.join();
+
+                return interpreter.fork().callBack(combine, List.of(leftResult, rightResult));
+            }
+
+            Interpreter worker = interpreter.fork();
+            Object accumulator = identity;
+
+            for (int i = from; i < to; i++) {
+                Object value = worker.callBack(function, List.of((double) i));
+                accumulator = worker.callBack(combine, List.of(accumulator, value));
+            }
+
+            return accumulator;
+        }
+    }
+
+    /**
+     * Runs the task on the pool and waits for it, but no longer than the
+     * meter's deadline. Chunks still running after that stop at their own
+     * next budget check, as they share the meter.
+     */
+    private static <T> T run(Interpreter interpreter, ForkJoinTask<T> task) {
+        interpreter.pool().execute(task);
+
+        try {
+            while (true) {
+                try {
+                    return task.get(interpreter.meter().nanosLeft(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Go round again, which throws if the deadline has passed
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new NativeFunction.Error("Parallel task failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeFunction.Error("Interrupted while waiting for parallel work.");
+        } catch (BudgetMeter.Expired e) {
+            task.cancel(false);
+            throw e;
+        }
+    }
+
+    private static int chunkSize(Interpreter interpreter, int count) {
+        if (interpreter.chunkSize() > 0)
+            return interpreter.chunkSize();
+
+        // A few chunks per worker leaves room for work stealing to even out the load
+        return Math.max(1, count / (interpreter.pool().getParallelism() * 4));
+    }
+
+    private static LoxCallable callable(Object value, int arity, String name) {
+        if (!(value instanceof LoxCallable) || ((LoxCallable) value).arity() != arity)
+            throw new NativeFunction.Error(name + "() expects a function taking " + arity + " argument"
+                    + (arity == 1 ? "" : "s") + ".");
+        return (LoxCallable) value;
+    }
+
+    private static int count(Object value) {
+        if (!(value instanceof Double) || (double) value < 0 || (double) value != Math.floor((double) value)
+                || (double) value > Integer.MAX_VALUE)
+            throw new NativeFunction.Error("Expected a non-negative whole count.");
+        return (int) (double) value;
+    }
+}
@@ -1,7 +1,6 @@
 package jlox;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class Parser {
@@ -9,10 +8,17 @@ public class Parser {
     }
 
     private final List<Token> tokens;
+    private final ErrorReporter reporter;
+    // Module the tokens came from, recorded on every statement
+    private final String module;
     private int current = 0;
+    // How many blocks deep the parser is; imports are only allowed at zero
+    private int blockDepth = 0;
 
-    public Parser(List<Token> tokens) {
+    public Parser(List<Token> tokens, ErrorReporter reporter) {
         this.tokens = tokens;
+        this.reporter = reporter;
+        this.module = tokens.isEmpty() ? null : tokens.get(0).module;
     }
 
     public List<Stmt> parse() {
@@ -26,13 +32,17 @@ public class Parser {
     }
 
     private Stmt declaration() {
+        int line = peek().line;
+
         try {
             if (match(TokenType.CLASS))
-                return classDeclaration();
+                return at(line, classDeclaration());
             if (match(TokenType.FUN))
-                return function("function");
+                return at(line, function("function"));
             if (match(TokenType.VAR))
-                return varDeclaration();
+                return at(line, varDeclaration());
+            if (match(TokenType.IMPORT))
+                return at(line, importDeclaration());
 
             return statement();
         } catch (ParseError e) {
@@ -43,6 +53,14 @@ public class Parser {
 
     private Stmt classDeclaration() {
         Token name = consume(TokenType.IDENTIFIER, "Expected class name");
+
+        Expr.Variable superclass = null;
+
+        if (match(TokenType.LESS)) {
+            consume(TokenType.IDENTIFIER, "Expected superclass name");
+            superclass = new Expr.Variable(previous());
+        }
+
         consume(TokenType.LEFT_BRACE, "Expected '{' before class body");
 
         List<Stmt.Function> methods = new ArrayList<>();
@@ -53,7 +71,7 @@ public class Parser {
 
         consume(TokenType.RIGHT_BRACE, "Expected } after class body");
 
-        return new Stmt.Class(name, methods);
+        return new Stmt.Class(name, superclass, methods);
     }
 
     private Stmt varDeclaration() {
@@ -70,34 +88,64 @@ public class Parser {
         return new Stmt.Var(name, initializer);
     }
 
+    private Stmt importDeclaration() {
+        Token keyword = previous();
+        if (blockDepth > 0)
+            throw error(keyword, "Imports must be at the top level.");
+
+        Token path = consume(TokenType.STRING, "Expected module path after 'import'.");
+        consume(TokenType.SEMICOLON, "Expected ';' after module path.");
+
+        return new Stmt.Import(keyword, path);
+    }
+
     private Stmt whileStatement() {
+        Token keyword = previous();
         consume(TokenType.LEFT_PAREN, "Expected '(' after 'while'.");
         Expr condition = expression();
         consume(TokenType.RIGHT_PAREN, "Expected ')' after while condition.");
 
         Stmt body = statement();
 
-        return new Stmt.While(condition, body);
+        return new Stmt.While(keyword, condition, body);
     }
 
     private Stmt statement() {
+        int line = peek().line;
+
         if (match(TokenType.FOR))
-            return forStatement();
+            return at(line, forStatement());
         if (match(TokenType.IF))
-            return ifStatement();
+            return at(line, ifStatement());
         if (match(TokenType.PRINT))
-            return printStatement();
+            return at(line, printStatement());
         if (match(TokenType.RETURN))
-            return returnStatement();
+            return at(line, returnStatement());
+        if (match(TokenType.THROW))
+            return at(line, throwStatement());
+        if (match(TokenType.TRY))
+            return at(line, tryStatement());
+        if (match(TokenType.BREAK))
+            return at(line, breakStatement());
+        if (match(TokenType.CONTINUE))
+            return at(line, continueStatement());
         if (match(TokenType.WHILE))
-            return whileStatement();
+            return at(line, whileStatement());
         if (match(TokenType.LEFT_BRACE))
-            return new Stmt.Block(block());
+            return at(line, new Stmt.Block(block()));
 
-        return expressionStatement();
+        return at(line, expressionStatement());
+    }
+
+    // Statements are attributed to the line they start on
+    private <T extends Stmt> T at(int line, T stmt) {
+        stmt.line = line;
+        stmt.module = module;
+        return stmt;
     }
 
     private Stmt forStatement() {
+        Token keyword = previous();
         consume(TokenType.LEFT_PAREN, "Expect '(' after 'for'.");
 
         Stmt initializer;
@@ -105,9 +153,9 @@ public class Parser {
         if (match(TokenType.SEMICOLON))
             initializer = null;
         else if (match(TokenType.VAR))
-            initializer = varDeclaration();
+            initializer = at(keyword.line, varDeclaration());
         else
-            initializer = expressionStatement();
+            initializer = at(keyword.line, expressionStatement());
 
         Expr condition = null;
 
@@ -125,19 +173,19 @@ public class Parser {
 
         Stmt body = statement();
 
-        if (increment != null) {
-            body = new Stmt.Block(Arrays.asList(body, new Stmt.Expression(increment)));
-        }
-
-        if (condition == null)
-            condition = new Expr.Literal(true);
-
-        body = new Stmt.While(condition, body);
+        return new Stmt.For(keyword, initializer, condition, increment, body);
+    }
 
-        if (initializer != null)
-            body = new Stmt.Block(Arrays.asList(initializer, body));
+    private Stmt breakStatement() {
+        Token keyword = previous();
+        consume(TokenType.SEMICOLON, "Expected ';' after 'break'.");
+        return new Stmt.Break(keyword);
+    }
 
-        return body;
+    private Stmt continueStatement() {
+        Token keyword = previous();
+        consume(TokenType.SEMICOLON, "Expected ';' after 'continue'.");
+        return new Stmt.Continue(keyword);
     }
 
     private Stmt ifStatement() {
@@ -174,6 +222,28 @@ public class Parser {
         return new Stmt.Return(keyword, value);
     }
 
+    private Stmt throwStatement() {
+        Token keyword = previous();
+        Expr value = expression();
+        consume(TokenType.SEMICOLON, "Expected ';' after thrown value");
+        return new Stmt.Throw(keyword, value);
+    }
+
+    private Stmt tryStatement() {
+        int line = previous().line;
+        consume(TokenType.LEFT_BRACE, "Expected '{' after 'try'.");
+        Stmt.Block body = at(line, new Stmt.Block(block()));
+
+        consume(TokenType.CATCH, "Expected 'catch' after try block.");
+        consume(TokenType.LEFT_PAREN, "Expected '(' after 'catch'.");
+        Token name = consume(TokenType.IDENTIFIER, "Expected error variable name.");
+        consume(TokenType.RIGHT_PAREN, "Expected ')' after error variable.");
+        consume(TokenType.LEFT_BRACE, "Expected '{' before catch body.");
+        List<Stmt> handler = block();
+
+        return new Stmt.Try(body, name, handler);
+    }
+
     private Stmt expressionStatement() {
         Expr expr = expression();
         consume(TokenType.SEMICOLON, "Expect ';' after expression.");
@@ -205,12 +275,17 @@ public class Parser {
 
     private List<Stmt> block() {
         List<Stmt> statements = new ArrayList<>();
+        blockDepth++;
 
-        while (!check(TokenType.RIGHT_BRACE) && !isAtEnd()) {
-            statements.add(declaration());
-        }
+        try {
+            while (!check(TokenType.RIGHT_BRACE) && !isAtEnd()) {
+                statements.add(declaration());
+            }
 
-        consume(TokenType.RIGHT_BRACE, "Expect '}' after block");
+            consume(TokenType.RIGHT_BRACE, "Expect '}' after block");
+        } finally {
+            blockDepth--;
+        }
 
         return statements;
     }
@@ -341,6 +416,12 @@ public class Parser {
 
         Token paren = consume(TokenType.RIGHT_PAREN, "Expect ')' after arguments.");
 
+        // obj.method(args) runs as one operation so the method is never bound
+        if (callee instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get) callee;
+            return new Expr.Invoke(get.object, get.name, paren, arguments);
+        }
+
         return new Expr.Call(callee, paren, arguments);
     }
 
@@ -362,6 +443,12 @@ public class Parser {
     }
 
     private Expr primary() {
+        if (match(TokenType.SUPER)) {
+            Token keyword = previous();
+            consume(TokenType.DOT, "Expected '.' after 'super'.");
+            Token method = consume(TokenType.IDENTIFIER, "Expected superclass method name.");
+            return new Expr.Super(keyword, method);
+        }
         if (match(TokenType.THIS))
             return new Expr.This(previous());
         if (match(TokenType.IDENTIFIER))
@@ -423,13 +510,15 @@ public class Parser {
     }
 
     private ParseError error(Token token, String errorMessage) {
-        Lox.error(token.line, errorMessage);
+        reporter.error(token.line, errorMessage);
         return new ParseError();
     }
 
     private void synchronize() {
+        advance();
+
         while (!isAtEnd()) {
-            if (peek().type == TokenType.SEMICOLON)
+            if (previous().type == TokenType.SEMICOLON)
                 return;
 
             switch (peek().type) {
@@ -0,0 +1,225 @@
+package jlox;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampling profiler for Lox code. Interpreters keep a shadow stack of the
+ * Lox functions they are running and a background thread copies those
+ * stacks at a fixed interval. Interpreters without a profiler have no stack
+ * at all, so the only cost when it is off is a null check per call.
+ */
+final class Profiler {
+    static final String ROOT = "<script>";
+
+    private final long intervalNanos;
+    // Stacks of forked interpreters drop out once the fork is garbage
+    private final Set<Stack> stacks = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Map<String, long[]> samples = new HashMap<>();
+    private Thread sampler;
+    private volatile boolean running;
+
+    Profiler(long intervalMicros) {
+        this.intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+    }
+
+    /**
+     * Returns a new stack for a top-level interpreter.
+     */
+    Stack stack() {
+        Stack stack = new Stack(this, new String[0], new int[0], -1);
+        register(stack);
+        return stack;
+    }
+
+    private void register(Stack stack) {
+        synchronized (stacks) {
+            stacks.add(stack);
+        }
+    }
+
+    void start() {
+        running = true;
+        sampler = new Thread(this::sample, "lox-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(sampler);
+
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample() {
+        List<Stack> snapshot = new ArrayList<>();
+        StringBuilder key = new StringBuilder();
+
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+
+            snapshot.clear();
+            synchronized (stacks) {
+                snapshot.addAll(stacks);
+            }
+
+            for (Stack stack : snapshot) {
+                key.setLength(0);
+                if (stack.collapse(key))
+                    samples.computeIfAbsent(key.toString(), k -> new long[1])[0]++;
+            }
+        }
+    }
+
+    /**
+     * Writes one line per distinct stack, root first and frames separated by
+     * semicolons, followed by the number of samples. This is the input format
+     * of flamegraph.pl and most other flame graph tools.
+     */
+    void writeCollapsed(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, long[]> sample : samples.entrySet())
+                writer.write(sample.getKey() + " " + sample.getValue()[0] + "\n");
+        }
+    }
+
+    /**
+     * Prints the time spent in each function itself and in everything it
+     * called, as a share of all samples, hottest first.
+     */
+    void writeTable(PrintStream stream) {
+        Map<String, long[]> times = new HashMap<>();
+        long total = 0;
+
+        for (Map.Entry<String, long[]> sample : samples.entrySet()) {
+            long count = sample.getValue()[0];
+            String[] frames = sample.getKey().split(";");
+            total += count;
+
+            // Recursive functions only count once towards their total
+            Set<String> seen = new HashSet<>();
+            for (String frame : frames) {
+                String function = function(frame);
+                if (seen.add(function))
+                    times.computeIfAbsent(function, k -> new long[2])[1] += count;
+            }
+
+            times.get(function(frames[frames.length - 1]))[0] += count;
+        }
+
+        List<Map.Entry<String, long[]>> rows = new ArrayList<>(times.entrySet());
+        rows.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+
+        stream.println("Profile: " + total + " samples");
+        stream.println(String.format("%7s %7s  %s", "self", "total", "function"));
+        for (Map.Entry<String, long[]> row : rows) {
+            long[] time = row.getValue();
+            stream.println(String.format("%6.2f%% %6.2f%%  %s",
+                    100.0 * time[0] / total, 100.0 * time[1] / total, row.getKey()));
+        }
+    }
+
+    private static String function(String frame) {
+        int colon = frame.lastIndexOf(':');
+        return colon < 0 ? frame : frame.substring(0, colon);
+    }
+
+    /**
+     * The functions one interpreter is in, outermost first. Only the owning
+     * thread writes to it. Entries are stored before the volatile depth, so
+     * the sampler sees every frame below the depth it reads, though a frame
+     * may already have been replaced by the time it is copied.
+     */
+    static final class Stack {
+        private final Profiler profiler;
+        // Frames of the interpreter this one was forked from, or -1 for a top-level stack
+        private final int base;
+        private String[] functions;
+        private int[] lines;
+        private volatile int depth;
+        // Line of the call being made, recorded with the frame it pushes
+        int site;
+        // Whether the interpreter is running a program; compiling, loading and waiting for input are not sampled
+        volatile boolean running;
+
+        private Stack(Profiler profiler, String[] functions, int[] lines, int base) {
+            int capacity = Math.max(16, functions.length * 2);
+            this.profiler = profiler;
+            this.functions = Arrays.copyOf(functions, capacity);
+            this.lines = Arrays.copyOf(lines, capacity);
+            this.base = base;
+            this.depth = functions.length;
+        }
+
+        void push(String function) {
+            int top = depth;
+            if (top == functions.length) {
+                lines = Arrays.copyOf(lines, top * 2);
+                functions = Arrays.copyOf(functions, top * 2);
+            }
+
+            lines[top] = site;
+            functions[top] = function;
+            depth = top + 1;
+        }
+
+        void pop() {
+            int top = depth - 1;
+            // Back in the caller, which may call again without passing a call site, as natives do
+            site = lines[top];
+            depth = top;
+        }
+
+        /**
+         * Returns a stack for an interpreter forked from this one, starting
+         * with the frames this one has now.
+         */
+        Stack fork() {
+            int top = depth;
+            Stack stack = new Stack(profiler, Arrays.copyOf(functions, top), Arrays.copyOf(lines, top), top);
+            stack.site = site;
+            stack.running = true;
+            profiler.register(stack);
+            return stack;
+        }
+
+        private boolean collapse(StringBuilder key) {
+            int top = depth;
+            String[] functions = this.functions;
+            int[] lines = this.lines;
+
+            // A forked interpreter that is not running anything is idle
+            if (top == base || !running)
+                return false;
+
+            key.append(ROOT);
+            for (int i = 0; i < top && i < functions.length && i < lines.length; i++) {
+                String function = functions[i];
+                if (function != null)
+                    key.append(';').append(function).append(':').append(lines[i]);
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package jlox;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A scanned, parsed and resolved script. Programs never change after
+ * compilation, so one instance can be run by any number of interpreters,
+ * including from different threads at the same time.
+ */
+public final class Program {
+    final List<Stmt> statements;
+    // Absolute paths of the modules imported at the top level
+    final List<String> imports;
+    // Whether any interpreter has run this yet, kept only while metrics are on
+    final AtomicBoolean ran = new AtomicBoolean();
+
+    private Program(List<Stmt> statements, List<String> imports) {
+        this.statements = List.copyOf(statements);
+        this.imports = List.copyOf(imports);
+    }
+
+    /**
+     * Returns the compiled program, or null if the source has errors. The
+     * errors are recorded in the given reporter. Imports are resolved
+     * against the working directory.
+     */
+    public static Program compile(String source, ErrorReporter reporter) {
+        return compile(source, null, reporter);
+    }
+
+    /**
+     * Returns the compiled program, or null if it or any module it imports
+     * has errors. Imports are resolved against the directory of origin, the
+     * file the source was read from.
+     */
+    public static Program compile(String source, Path origin, ErrorReporter reporter) {
+        Program program = compileAsync(source, origin, null, reporter);
+
+        if (program == null || !Modules.await(program, reporter))
+            return null;
+
+        return program;
+    }
+
+    /**
+     * Compiles the source without waiting for its imports, which are still
+     * loading in the background when this returns. Module is the path to
+     * attribute the code to when it is imported, null for a script.
+     */
+    static Program compileAsync(String source, Path origin, String module, ErrorReporter reporter) {
+        boolean recording = Events.enabled;
+
+        Object scan = recording ? Events.beginCompile("scan") : null;
+        Scanner scanner = new Scanner(source, module, reporter);
+        List<Token> tokens = scanner.scanTokens();
+        int lines = tokens.get(tokens.size() - 1).line;
+        if (recording)
+            Events.endCompile(scan, lines);
+
+        Object parse = recording ? Events.beginCompile("parse") : null;
+        Parser parser = new Parser(tokens, reporter);
+        List<Stmt> statements = parser.parse();
+        if (recording)
+            Events.endCompile(parse, lines);
+
+        // Stop if there are parsing errors
+        if (reporter.hadError())
+            return null;
+
+        Object resolve = recording ? Events.beginCompile("resolve") : null;
+        Resolver resolver = new Resolver(reporter);
+        resolver.resolve(statements);
+        if (recording)
+            Events.endCompile(resolve, lines);
+
+        // Stop if there are resolution errors
+        if (reporter.hadError())
+            return null;
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.SCRIPTS_COMPILED.increment();
+
+        List<String> imports = new ArrayList<>();
+        for (Stmt stmt : statements) {
+            if (stmt instanceof Stmt.Import) {
+                Stmt.Import declaration = (Stmt.Import) stmt;
+                try {
+                    declaration.module = Modules.resolve((String) declaration.path.literal, origin);
+                    imports.add(declaration.module);
+                } catch (InvalidPathException e) {
+                    reporter.error(declaration.path, "Invalid module path: " + e.getReason() + ".");
+                }
+            }
+        }
+
+        if (reporter.hadError())
+            return null;
+
+        Modules.start(imports);
+
+        return new Program(statements, imports);
+    }
+}
@@ -0,0 +1,64 @@
+package jlox;
+
+/**
+ * Inline cache for one property access site. It remembers, per receiver
+ * shape, where the property was found: a field slot, a method, or for
+ * stores that add a field, the shape the instance moves to. A site starts
+ * empty, holds one shape (monomorphic), then up to LIMIT shapes
+ * (polymorphic), and after that stops caching (megamorphic). Caches are
+ * kept per interpreter, see Sites.
+ */
+final class PropertyCache {
+    static final int LIMIT = 4;
+    private static final Entry[] EMPTY = {};
+
+    static final class Entry {
+        final Shape shape;
+        final int slot;
+        final LoxFunction method;
+        final Shape transition;
+
+        Entry(Shape shape, int slot, LoxFunction method, Shape transition) {
+            this.shape = shape;
+            this.slot = slot;
+            this.method = method;
+            this.transition = transition;
+        }
+    }
+
+    // Replaced wholesale on every update; a lost race only costs a cache miss
+    private Entry[] entries = EMPTY;
+    private boolean megamorphic = false;
+
+    Entry find(Shape shape) {
+        for (Entry entry : entries) {
+            if (entry != null && entry.shape == shape) {
+                if (LoxMetrics.enabled)
+                    LoxMetrics.CACHE_HITS.increment();
+                return entry;
+            }
+        }
+
+        if (LoxMetrics.enabled)
+            LoxMetrics.CACHE_MISSES.increment();
+        return null;
+    }
+
+    void remember(Shape shape, int slot, LoxFunction method, Shape transition) {
+        if (megamorphic)
+            return;
+
+        Entry[] current = entries;
+
+        if (current.length == LIMIT) {
+            megamorphic = true;
+            entries = EMPTY;
+            return;
+        }
+
+        Entry[] updated = new Entry[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = new Entry(shape, slot, method, transition);
+        entries = updated;
+    }
+}
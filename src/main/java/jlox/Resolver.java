@@ -10,9 +10,11 @@ import jlox.Expr.Binary;
 import jlox.Expr.Call;
 import jlox.Expr.Get;
 import jlox.Expr.Grouping;
+import jlox.Expr.Invoke;
 import jlox.Expr.Literal;
 import jlox.Expr.Logical;
 import jlox.Expr.Set;
+import jlox.Expr.Super;
 import jlox.Expr.This;
 import jlox.Expr.Unary;
 import jlox.Expr.Variable;
@@ -35,27 +37,48 @@ enum FunctionType {
 
 enum ClassType {
     NONE,
-    CLASS
+    CLASS,
+    SUBCLASS
 }
 
 public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
-    private final Interpreter interpreter;
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final ErrorReporter reporter;
+    private final Stack<Map<Symbol, Boolean>> scopes = new Stack<>();
     private FunctionType currentFunction = FunctionType.NONE;
+    // Loops around the code being resolved, within the current function
+    private int loopDepth = 0;
     private ClassType currentClass = ClassType.NONE;
+    private final Sites sites = new Sites();
 
-    public Resolver(Interpreter interpreter) {
-        this.interpreter = interpreter;
+    public Resolver(ErrorReporter reporter) {
+        this.reporter = reporter;
     }
 
     @Override
     public Void visitBlockStmt(Block stmt) {
+        // A block that declares nothing has no scope of its own, at resolve time or at run time
+        stmt.scoped = declaresNames(stmt.statements);
+
+        if (!stmt.scoped) {
+            resolve(stmt.statements);
+            return null;
+        }
+
         beginScope();
         resolve(stmt.statements);
         endScope();
         return null;
     }
 
+    private static boolean declaresNames(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Var || statement instanceof Function || statement instanceof Class)
+                return true;
+        }
+
+        return false;
+    }
+
     @Override
     public Void visitClassStmt(Class stmt) {
         ClassType enclosingClass = currentClass;
@@ -63,18 +86,26 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
         declare(stmt.name);
 
-        beginScope();
+        if (stmt.superclass != null) {
+            if (stmt.name.symbol == stmt.superclass.name.symbol)
+                reporter.error(stmt.superclass.name, "A class can't inherit from itself.");
 
-        scopes.peek().put("this", true);
+            currentClass = ClassType.SUBCLASS;
+            resolve(stmt.superclass);
+
+            beginScope();
+            scopes.peek().put(Symbol.SUPER, true);
+        }
 
         for (Stmt.Function method : stmt.methods) {
             FunctionType type = FunctionType.METHOD;
-            if (method.name.lexeme.equals("init"))
+            if (method.name.symbol == Symbol.INIT)
                 type = FunctionType.INITIALIZER;
             resolveFunction(method, type);
         }
 
-        endScope();
+        if (stmt.superclass != null)
+            endScope();
 
         currentClass = enclosingClass;
 
@@ -107,21 +138,87 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitReturnStmt(Return stmt) {
         if (currentFunction == FunctionType.NONE)
-            Lox.error(stmt.keyword, "Can't return from top-level code.");
+            reporter.error(stmt.keyword, "Can't return from top-level code.");
         if (currentFunction == FunctionType.INITIALIZER)
-            Lox.error(stmt.keyword, "Can't return a value from an initializer");
+            reporter.error(stmt.keyword, "Can't return a value from an initializer");
         if (stmt.value != null)
             resolve(stmt.value);
         return null;
     }
 
+    @Override
+    public Void visitImportStmt(Stmt.Import stmt) {
+        // A module's names are globals, looked up at run time like any other
+        return null;
+    }
+
+    @Override
+    public Void visitThrowStmt(Stmt.Throw stmt) {
+        resolve(stmt.value);
+        return null;
+    }
+
+    @Override
+    public Void visitTryStmt(Stmt.Try stmt) {
+        resolve(stmt.body);
+
+        // The handler always gets a scope, holding the caught error
+        beginScope();
+        declare(stmt.name);
+        define(stmt.name);
+        resolve(stmt.handler);
+        endScope();
+        return null;
+    }
+
     @Override
     public Void visitWhileStmt(While stmt) {
         resolve(stmt.condition);
-        resolve(stmt.body);
+        resolveLoopBody(stmt.body);
+        return null;
+    }
+
+    @Override
+    public Void visitForStmt(Stmt.For stmt) {
+        // Only a declared loop variable needs a scope, which the whole loop shares
+        stmt.scoped = stmt.initializer instanceof Stmt.Var;
+
+        if (stmt.scoped)
+            beginScope();
+
+        if (stmt.initializer != null)
+            resolve(stmt.initializer);
+        if (stmt.condition != null)
+            resolve(stmt.condition);
+        if (stmt.increment != null)
+            resolve(stmt.increment);
+        resolveLoopBody(stmt.body);
+
+        if (stmt.scoped)
+            endScope();
+        return null;
+    }
+
+    @Override
+    public Void visitBreakStmt(Stmt.Break stmt) {
+        if (loopDepth == 0)
+            reporter.error(stmt.keyword, "Can't use 'break' outside of a loop.");
+        return null;
+    }
+
+    @Override
+    public Void visitContinueStmt(Stmt.Continue stmt) {
+        if (loopDepth == 0)
+            reporter.error(stmt.keyword, "Can't use 'continue' outside of a loop.");
         return null;
     }
 
+    private void resolveLoopBody(Stmt body) {
+        loopDepth++;
+        resolve(body);
+        loopDepth--;
+    }
+
     @Override
     public Void visitBinaryExpr(Binary expr) {
         resolve(expr.left);
@@ -140,7 +237,20 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitGetExpr(Get expr) {
+        expr.sites = sites;
+        expr.site = sites.count++;
+        resolve(expr.object);
+        return null;
+    }
+
+    @Override
+    public Void visitInvokeExpr(Invoke expr) {
+        expr.sites = sites;
+        expr.site = sites.count++;
         resolve(expr.object);
+
+        for (Expr arg : expr.arguments)
+            resolve(arg);
         return null;
     }
 
@@ -164,17 +274,30 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitSetExpr(Set expr) {
+        expr.sites = sites;
+        expr.site = sites.count++;
         resolve(expr.value);
         resolve(expr.object);
         return null;
     }
 
+    @Override
+    public Void visitSuperExpr(Super expr) {
+        if (currentClass == ClassType.NONE)
+            reporter.error(expr.keyword, "Can't use 'super' outside of a class.");
+        else if (currentClass != ClassType.SUBCLASS)
+            reporter.error(expr.keyword, "Can't use 'super' in a class with no superclass.");
+
+        expr.depth = resolveLocal(expr.keyword);
+        return null;
+    }
+
     @Override
     public Void visitThisExpr(This expr) {
         if (currentClass == ClassType.NONE)
-            Lox.error(expr.keyword, "Can't use 'this' outside of a class");
+            reporter.error(expr.keyword, "Can't use 'this' outside of a class");
 
-        resolveLocal(expr, expr.keyword);
+        expr.depth = resolveLocal(expr.keyword);
         return null;
     }
 
@@ -205,16 +328,16 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitAssignExpr(Assign expr) {
         resolve(expr.value);
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveLocal(expr.name);
         return null;
     }
 
     @Override
     public Void visitVariableExpr(Variable expr) {
-        if (!scopes.isEmpty() && scopes.peek().get(expr.name.lexeme) == Boolean.FALSE)
-            Lox.error(expr.name, "Can't read local variable in its own initializer.");
+        if (!scopes.isEmpty() && scopes.peek().get(expr.name.symbol) == Boolean.FALSE)
+            reporter.error(expr.name, "Can't read local variable in its own initializer.");
 
-        resolveLocal(expr, expr.name);
+        expr.depth = resolveLocal(expr.name);
         return null;
     }
 
@@ -234,8 +357,16 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     private void resolveFunction(Function stmt, FunctionType type) {
         FunctionType enclosingFunction = currentFunction;
         currentFunction = type;
+        // break and continue cannot reach a loop outside the function
+        int enclosingLoops = loopDepth;
+        loopDepth = 0;
 
         beginScope();
+
+        // Methods receive 'this' in the same scope as their parameters
+        if (type == FunctionType.METHOD || type == FunctionType.INITIALIZER)
+            scopes.peek().put(Symbol.THIS, true);
+
         for (Token tk : stmt.params) {
             declare(tk);
             define(tk);
@@ -244,10 +375,11 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         endScope();
 
         currentFunction = enclosingFunction;
+        loopDepth = enclosingLoops;
     }
 
     private void beginScope() {
-        scopes.push(new HashMap<String, Boolean>());
+        scopes.push(new HashMap<Symbol, Boolean>());
     }
 
     private void endScope() {
@@ -258,27 +390,28 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         if (scopes.isEmpty())
             return;
 
-        Map<String, Boolean> scope = scopes.peek();
+        Map<Symbol, Boolean> scope = scopes.peek();
 
-        if (scope.containsKey(name.lexeme))
-            Lox.error(name, "Already a variable with this name in this scope.");
+        if (scope.containsKey(name.symbol))
+            reporter.error(name, "Already a variable with this name in this scope.");
 
-        scope.put(name.lexeme, false);
+        scope.put(name.symbol, false);
     }
 
     private void define(Token name) {
         if (scopes.isEmpty())
             return;
 
-        scopes.peek().put(name.lexeme, true);
+        scopes.peek().put(name.symbol, true);
     }
 
-    private void resolveLocal(Expr expr, Token name) {
+    // Returns how many scopes out the name lives, or -1 for a global
+    private int resolveLocal(Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            if (scopes.get(i).containsKey(name.lexeme)) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
-                return;
-            }
+            if (scopes.get(i).containsKey(name.symbol))
+                return scopes.size() - 1 - i;
         }
+
+        return -1;
     }
 }
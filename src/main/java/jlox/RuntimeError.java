@@ -1,10 +1,87 @@
 package jlox;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An error raised by a running script, either by the interpreter or by a
+ * throw statement. Scripts can catch it, so it is cheap to create: it skips
+ * the Java stack trace and instead records the Lox calls it unwinds through.
+ */
 public class RuntimeError extends RuntimeException {
     final Token token;
+    // What a catch clause receives: the thrown value, or the message
+    final Object value;
+    // Lox functions unwound so far, innermost first; null until the first one
+    private List<Frame> trace;
+    // Where the error is in the function being unwound
+    private int line;
+    private String module;
 
     public RuntimeError(Token token, String message) {
-        super(message);
+        this(token, message, message);
+    }
+
+    RuntimeError(Token token, String message, Object value) {
+        super(message, null, false, false);
         this.token = token;
+        this.value = value;
+        this.line = token == null ? 0 : token.line;
+        this.module = token == null ? null : token.module;
+    }
+
+    /**
+     * Records that the error left the named function through the given call,
+     * which is null for calls made by natives.
+     */
+    void unwind(String function, Token call) {
+        if (trace == null)
+            trace = new ArrayList<>();
+
+        trace.add(new Frame(function, line, module));
+        line = call == null ? 0 : call.line;
+        module = call == null ? null : call.module;
+    }
+
+    /**
+     * Returns the line, prefixed with the module path for errors in imported
+     * code.
+     */
+    static String location(String module, int line) {
+        return module == null ? "line " + line : module + ", line " + line;
+    }
+
+    /**
+     * Returns the Lox call trace, one line per frame, or an empty string if
+     * the error did not leave any function.
+     */
+    String trace() {
+        if (trace == null)
+            return "";
+
+        StringBuilder text = new StringBuilder();
+        for (Frame frame : trace) {
+            text.append("\n  in ").append(frame.function).append("()");
+            // Natives that call back into Lox have no line of their own
+            if (frame.line > 0)
+                text.append(" [").append(location(frame.module, frame.line)).append("]");
+        }
+        // Errors in a task or parallel callback never reach the script
+        if (line > 0)
+            text.append("\n  in script [").append(location(module, line)).append("]");
+
+        return text.toString();
+    }
+
+    private static final class Frame {
+        final String function;
+        final int line;
+        final String module;
+
+        Frame(String function, int line, String module) {
+            this.function = function;
+            this.line = line;
+            this.module = module;
+        }
     }
 }
@@ -6,6 +6,8 @@ import java.util.List;
 
 public class Scanner {
     private final String source;
+    private final ErrorReporter reporter;
+    private final String module;
     private final List<Token> tokens = new ArrayList<>();
     private int start = 0;
     private int current = 0;
@@ -29,10 +31,25 @@ public class Scanner {
         keywords.put("false", TokenType.FALSE);
         keywords.put("return", TokenType.RETURN);
         keywords.put("print", TokenType.PRINT);
+        keywords.put("try", TokenType.TRY);
+        keywords.put("catch", TokenType.CATCH);
+        keywords.put("throw", TokenType.THROW);
+        keywords.put("break", TokenType.BREAK);
+        keywords.put("continue", TokenType.CONTINUE);
+        keywords.put("import", TokenType.IMPORT);
     }
 
-    public Scanner(String source) {
+    public Scanner(String source, ErrorReporter reporter) {
+        this(source, null, reporter);
+    }
+
+    /**
+     * Scans an imported module, whose path every token records.
+     */
+    Scanner(String source, String module, ErrorReporter reporter) {
         this.source = source;
+        this.module = module;
+        this.reporter = reporter;
     }
 
     public List<Token> scanTokens() {
@@ -41,7 +58,7 @@ public class Scanner {
             scanToken();
         }
 
-        tokens.add(new Token(TokenType.EOF, "", null, line));
+        tokens.add(new Token(TokenType.EOF, "", null, line, null, module));
         return tokens;
     }
 
@@ -68,8 +85,8 @@ public class Scanner {
             }
             case '!' -> addToken(match('=') ? TokenType.BANG_EQUAL : TokenType.BANG);
             case '=' -> addToken(match('=') ? TokenType.EQUAL_EQUAL : TokenType.EQUAL);
-            case '>' -> addToken(match('=') ? TokenType.LESS_EQUAL : TokenType.LESS);
-            case '<' -> addToken(match('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER);
+            case '>' -> addToken(match('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER);
+            case '<' -> addToken(match('=') ? TokenType.LESS_EQUAL : TokenType.LESS);
             case ' ', '\r', '\t' -> {
             }
             case '\n' -> line++;
@@ -80,7 +97,7 @@ public class Scanner {
                 else if (isAlpha(c))
                     identifier();
                 else
-                    Lox.error(line, "Unexpected character");
+                    reporter.error(line, "Unexpected character");
             }
         }
     }
@@ -95,6 +112,13 @@ public class Scanner {
         if (type == null)
             type = TokenType.IDENTIFIER;
 
+        if (type == TokenType.IDENTIFIER || type == TokenType.THIS || type == TokenType.SUPER) {
+            // Tokens share the interned name instead of each holding a copy
+            Symbol symbol = Symbol.of(text);
+            tokens.add(new Token(type, symbol.name, null, line, symbol, module));
+            return;
+        }
+
         addToken(type);
     }
 
@@ -120,7 +144,7 @@ public class Scanner {
             advance();
         }
         if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+            reporter.error(line, "Unterminated string.");
         }
 
         advance();
@@ -158,7 +182,7 @@ public class Scanner {
 
     private void addToken(TokenType type, Object literal) {
         String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+        tokens.add(new Token(type, text, literal, line, null, module));
     }
 
     private boolean match(char expected) {
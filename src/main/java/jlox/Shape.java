@@ -0,0 +1,52 @@
+package jlox;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The field layout shared by every instance that gained the same fields in
+ * the same order. Adding a field moves an instance along a transition to a
+ * child shape, so instances only need an array of values and a pointer to
+ * their shape. Each class has its own tree, which means a shape also
+ * identifies the class of its instances.
+ */
+final class Shape implements Serializable {
+    private final Map<Symbol, Integer> slots;
+    private final Map<Symbol, Shape> transitions = new ConcurrentHashMap<>();
+    final int size;
+
+    private Shape(Map<Symbol, Integer> slots) {
+        this.slots = slots;
+        this.size = slots.size();
+    }
+
+    static Shape root() {
+        return new Shape(Map.of());
+    }
+
+    /**
+     * Returns the slot index holding the field, or -1 if this layout does not
+     * have it.
+     */
+    int slot(Symbol name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the shape after adding the field, which lands in slot size.
+     */
+    Shape with(Symbol name) {
+        Shape next = transitions.get(name);
+        if (next != null)
+            return next;
+
+        return transitions.computeIfAbsent(name, key -> {
+            Map<Symbol, Integer> extended = new HashMap<>(slots);
+            extended.put(key, size);
+            return new Shape(extended);
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package jlox;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The property access sites of one program, numbered by the resolver.
+ * Programs are shared, but shapes, and so inline caches, belong to one
+ * interpreter and its forks. Each of those gets its own table of caches
+ * here, which goes away with the interpreter.
+ */
+final class Sites implements Serializable {
+    int count;
+    private transient Map<Object, PropertyCache[]> tables;
+
+    synchronized PropertyCache[] table(Object context) {
+        if (tables == null)
+            tables = new WeakHashMap<>();
+        return tables.computeIfAbsent(context, key -> new PropertyCache[count]);
+    }
+}
@@ -0,0 +1,153 @@
+package jlox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves an interpreter's global variables to a file and restores them into
+ * another interpreter, so a prelude of definitions runs once instead of on
+ * every start. Functions are saved with their syntax trees and closures,
+ * classes with their method tables, and instances with their fields.
+ *
+ * The globals environment itself and native functions are not written out.
+ * They are saved as references and bound to the restoring interpreter's own
+ * globals and natives. Tasks and channels cannot be saved. Snapshots use
+ * Java serialization, so they only load in the build that made them.
+ */
+final class Snapshot {
+    private static final String MAGIC = "jlox snapshot";
+    private static final int VERSION = 1;
+
+    /*
+     * Only the classes a snapshot is made of may be read, so a crafted file
+     * cannot instantiate arbitrary serializable classes on the class path.
+     * The concurrent map and lock classes are there for shape transitions.
+     * Limits guard against files built to exhaust the stack or the heap.
+     */
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=10000;maxarray=10000000;maxrefs=10000000"
+                    + ";jlox.*;java.lang.Object;java.lang.Enum;java.lang.Number"
+                    + ";java.lang.Double;java.lang.Integer;java.lang.Boolean"
+                    + ";java.util.ArrayList;java.util.HashMap;java.util.Map$Entry"
+                    + ";java.util.CollSer;java.util.ImmutableCollections$*"
+                    + ";java.util.concurrent.ConcurrentHashMap;java.util.concurrent.ConcurrentHashMap$Segment"
+                    + ";java.util.concurrent.locks.ReentrantLock;java.util.concurrent.locks.ReentrantLock$*"
+                    + ";java.util.concurrent.locks.AbstractQueuedSynchronizer"
+                    + ";java.util.concurrent.locks.AbstractOwnableSynchronizer"
+                    + ";!*");
+
+    private Snapshot() {
+    }
+
+    static void save(Interpreter interpreter, Path path) throws IOException {
+        // Copied so the globals do not change underneath the writer
+        Map<Symbol, Object> globals = new HashMap<>(interpreter.global.values());
+
+        try (OutputStream file = Files.newOutputStream(path);
+                ObjectOutputStream out = new Writer(new GZIPOutputStream(new BufferedOutputStream(file)),
+                        interpreter.global)) {
+            out.writeUTF(MAGIC);
+            out.writeInt(VERSION);
+            out.writeObject(globals);
+        }
+    }
+
+    /**
+     * Defines every global in the snapshot in the interpreter, replacing any
+     * variable of the same name.
+     */
+    @SuppressWarnings("unchecked")
+    static void load(Interpreter interpreter, Path path) throws IOException {
+        Map<Symbol, Object> globals;
+
+        try (InputStream file = Files.newInputStream(path);
+                ObjectInputStream in = new Reader(new GZIPInputStream(new BufferedInputStream(file)),
+                        interpreter.global)) {
+            if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION)
+                throw new InvalidObjectException("Not a jlox snapshot: " + path);
+
+            globals = (Map<Symbol, Object>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException | InvalidClassException e) {
+            throw new InvalidObjectException("Not a jlox snapshot: " + path);
+        }
+
+        for (Map.Entry<Symbol, Object> global : globals.entrySet())
+            interpreter.global.define(global.getKey(), global.getValue());
+    }
+
+    // Stands in for the globals environment
+    private static final class Globals implements Serializable {
+    }
+
+    // Stands in for a native function, which is looked up by name on restore
+    private static final class Native implements Serializable {
+        final String name;
+
+        Native(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Writer extends ObjectOutputStream {
+        private final Environment global;
+
+        Writer(OutputStream out, Environment global) throws IOException {
+            super(out);
+            this.global = global;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj == global)
+                return new Globals();
+            if (obj instanceof NativeFunction)
+                return new Native(((NativeFunction) obj).name);
+            return obj;
+        }
+    }
+
+    private static final class Reader extends ObjectInputStream {
+        private final Environment global;
+
+        Reader(InputStream in, Environment global) throws IOException {
+            super(in);
+            this.global = global;
+            setObjectInputFilter(FILTER);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof Globals)
+                return global;
+
+            if (obj instanceof Native) {
+                String name = ((Native) obj).name;
+                Symbol symbol = Symbol.lookup(name);
+                Object function = symbol == null ? null : global.values().get(symbol);
+
+                if (!(function instanceof NativeFunction))
+                    throw new InvalidObjectException("Unknown native function '" + name + "'");
+                return function;
+            }
+
+            return obj;
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package jlox;
 
+import java.io.Serializable;
 import java.util.List;
 
-abstract class Stmt{
+abstract class Stmt implements Serializable {
+    int line;
+    String module;
     interface Visitor<R> {
         R visitBlockStmt(Block stmt);
+        R visitBreakStmt(Break stmt);
         R visitClassStmt(Class stmt);
+        R visitContinueStmt(Continue stmt);
         R visitExpressionStmt(Expression stmt);
+        R visitForStmt(For stmt);
         R visitFunctionStmt(Function stmt);
         R visitIfStmt(If stmt);
+        R visitImportStmt(Import stmt);
         R visitVarStmt(Var stmt);
         R visitPrintStmt(Print stmt);
         R visitReturnStmt(Return stmt);
+        R visitThrowStmt(Throw stmt);
+        R visitTryStmt(Try stmt);
         R visitWhileStmt(While stmt);
     }
     public static class Block extends Stmt {
         final List<Stmt> statements;
+        boolean scoped = true;
         public Block(List<Stmt> statements) {
             this.statements = statements;
         }
@@ -25,11 +35,24 @@ abstract class Stmt{
             return visitor.visitBlockStmt(this);
         }
     }
+    public static class Break extends Stmt {
+        final Token keyword;
+        public Break(Token keyword) {
+            this.keyword = keyword;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitBreakStmt(this);
+        }
+    }
     public static class Class extends Stmt {
         final Token name;
+        final Expr.Variable superclass;
         final List<Stmt.Function> methods;
-        public Class(Token name, List<Stmt.Function> methods) {
+        public Class(Token name, Expr.Variable superclass, List<Stmt.Function> methods) {
             this.name = name;
+            this.superclass = superclass;
             this.methods = methods;
         }
 
@@ -38,6 +61,17 @@ abstract class Stmt{
             return visitor.visitClassStmt(this);
         }
     }
+    public static class Continue extends Stmt {
+        final Token keyword;
+        public Continue(Token keyword) {
+            this.keyword = keyword;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitContinueStmt(this);
+        }
+    }
     public static class Expression extends Stmt {
         final Expr expression;
         public Expression(Expr expression) {
@@ -49,6 +83,26 @@ abstract class Stmt{
             return visitor.visitExpressionStmt(this);
         }
     }
+    public static class For extends Stmt {
+        final Token keyword;
+        final Stmt initializer;
+        final Expr condition;
+        final Expr increment;
+        final Stmt body;
+        boolean scoped = true;
+        public For(Token keyword, Stmt initializer, Expr condition, Expr increment, Stmt body) {
+            this.keyword = keyword;
+            this.initializer = initializer;
+            this.condition = condition;
+            this.increment = increment;
+            this.body = body;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitForStmt(this);
+        }
+    }
     public static class Function extends Stmt {
         final Token name;
         final List<Token> params;
@@ -79,6 +133,20 @@ abstract class Stmt{
             return visitor.visitIfStmt(this);
         }
     }
+    public static class Import extends Stmt {
+        final Token keyword;
+        final Token path;
+        String module;
+        public Import(Token keyword, Token path) {
+            this.keyword = keyword;
+            this.path = path;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitImportStmt(this);
+        }
+    }
     public static class Var extends Stmt {
         final Token name;
         final Expr initializer;
@@ -116,10 +184,40 @@ abstract class Stmt{
             return visitor.visitReturnStmt(this);
         }
     }
+    public static class Throw extends Stmt {
+        final Token keyword;
+        final Expr value;
+        public Throw(Token keyword, Expr value) {
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitThrowStmt(this);
+        }
+    }
+    public static class Try extends Stmt {
+        final Stmt.Block body;
+        final Token name;
+        final List<Stmt> handler;
+        public Try(Stmt.Block body, Token name, List<Stmt> handler) {
+            this.body = body;
+            this.name = name;
+            this.handler = handler;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitTryStmt(this);
+        }
+    }
     public static class While extends Stmt {
+        final Token keyword;
         final Expr condition;
         final Stmt body;
-        public While(Expr condition, Stmt body) {
+        public While(Token keyword, Expr condition, Stmt body) {
+            this.keyword = keyword;
             this.condition = condition;
             this.body = body;
         }
@@ -0,0 +1,105 @@
+package jlox;
+
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An interned name. There is exactly one Symbol per distinct name, so maps
+ * keyed by symbols compare keys by identity and hash with the precomputed
+ * id instead of walking the characters of a string.
+ *
+ * The table only holds symbols weakly. A name nothing refers to any more,
+ * such as a local from a REPL line that has finished, is dropped and gets a
+ * fresh symbol if it is ever seen again. Long sessions therefore keep only
+ * the names still used by live code and values.
+ */
+public final class Symbol implements Serializable {
+    private static final ConcurrentHashMap<String, Ref> table = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Symbol> cleared = new ReferenceQueue<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    static final Symbol THIS = of("this");
+    static final Symbol SUPER = of("super");
+    static final Symbol INIT = of("init");
+
+    final String name;
+    final int id;
+
+    private Symbol(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public static Symbol of(String name) {
+        Symbol symbol = lookup(name);
+        if (symbol != null)
+            return symbol;
+
+        expunge();
+
+        Symbol[] interned = new Symbol[1];
+        table.compute(name, (key, ref) -> {
+            interned[0] = ref == null ? null : ref.get();
+            if (interned[0] != null)
+                return ref;
+
+            interned[0] = new Symbol(key, nextId.getAndIncrement());
+            return new Ref(interned[0]);
+        });
+
+        return interned[0];
+    }
+
+    /**
+     * Returns the symbol for the name if one exists, without interning it.
+     */
+    static Symbol lookup(String name) {
+        Ref ref = table.get(name);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * Returns how many names are interned, including ones about to be dropped.
+     */
+    static int count() {
+        expunge();
+        return table.size();
+    }
+
+    private static void expunge() {
+        Reference<? extends Symbol> ref;
+        while ((ref = cleared.poll()) != null) {
+            // Only if the name has not been interned again since
+            table.remove(((Ref) ref).name, ref);
+        }
+    }
+
+    private static final class Ref extends WeakReference<Symbol> {
+        final String name;
+
+        Ref(Symbol symbol) {
+            super(symbol, cleared);
+            this.name = symbol.name;
+        }
+    }
+
+    // Ids differ between runs, so a deserialized symbol is interned again by name
+    private Object readResolve() {
+        return of(name);
+    }
+
+    // equals stays identity, which is exactly right for interned values
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
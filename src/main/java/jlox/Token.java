@@ -1,16 +1,32 @@
 package jlox;
 
-class Token {
+import java.io.Serializable;
+
+class Token implements Serializable {
     final TokenType type;
     final String lexeme;
     final Object literal;
     final int line;
+    // Set for identifiers, 'this' and 'super'; null for every other token
+    final Symbol symbol;
+    // Path of the imported module the token is from; null in the script being run
+    final String module;
 
     public Token(TokenType type, String lexeme, Object literal, int line) {
+        this(type, lexeme, literal, line, null);
+    }
+
+    public Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol) {
+        this(type, lexeme, literal, line, symbol, null);
+    }
+
+    Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol, String module) {
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
+        this.symbol = symbol;
+        this.module = module;
     }
 
     public String toString() {
@@ -12,5 +12,6 @@ enum TokenType {
     // Keywords
     AND, CLASS, ELSE, FALSE, FUN, FOR, IF, NIL, OR,
     PRINT, RETURN, SUPER, THIS, TRUE, VAR, WHILE,
+    TRY, CATCH, THROW, BREAK, CONTINUE, IMPORT,
     EOF
 }
@@ -0,0 +1,55 @@
+package jlox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Sink for hosts that want output as characters, such as a ScriptContext.
+ * The target writer can be swapped between runs.
+ */
+class WriterSink implements OutputSink {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final StringBuilder buffer = new StringBuilder();
+    private Writer writer;
+
+    WriterSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    synchronized void target(Writer writer) {
+        flush();
+        this.writer = writer;
+    }
+
+    @Override
+    public synchronized void print(String text) {
+        buffer.append(text);
+    }
+
+    @Override
+    public synchronized void print(double number) {
+        NumberFormatter.format(number, buffer);
+    }
+
+    @Override
+    public synchronized void println() {
+        buffer.append(NEWLINE);
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (buffer.length() == 0)
+            return;
+
+        try {
+            writer.append(buffer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.setLength(0);
+        }
+    }
+}
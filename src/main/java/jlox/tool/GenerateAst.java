@@ -14,40 +14,57 @@ public class GenerateAst {
 
         String outputDir = args[0];
 
-        defineAst(outputDir, "Expr", Arrays.asList(
-                "Assign   : Token name, Expr value",
+        defineAst(outputDir, "Expr", Arrays.asList(), Arrays.asList(
+                "Assign   : Token name, Expr value | int depth = -1",
                 "Binary   : Expr left, Token op, Expr right",
                 "Call     : Expr callee, Token paren, List<Expr> arguments",
-                "Get      : Expr object, Token name",
-                "Set      : Expr object, Token name, Expr value",
-                "This     : Token keyword",
+                "Get      : Expr object, Token name | Sites sites, int site",
+                "Invoke   : Expr object, Token name, Token paren, List<Expr> arguments | Sites sites, int site",
+                "Set      : Expr object, Token name, Expr value | Sites sites, int site",
+                "Super    : Token keyword, Token method | int depth = -1",
+                "This     : Token keyword | int depth = -1",
                 "Grouping : Expr expression",
                 "Literal  : Object value",
                 "Logical  : Expr left, Token op, Expr right",
-                "Variable : Token name",
+                "Variable : Token name | int depth = -1",
                 "Unary    : Token op, Expr right"));
 
-        defineAst(outputDir, "Stmt", Arrays.asList(
-                "Block        : List<Stmt> statements",
-                "Class        : Token name, List<Stmt.Function> methods",
+        // The line a statement starts on and the module it is in, set by the parser
+        defineAst(outputDir, "Stmt", Arrays.asList("int line", "String module"), Arrays.asList(
+                "Block        : List<Stmt> statements | boolean scoped = true",
+                "Break        : Token keyword",
+                "Class        : Token name, Expr.Variable superclass, List<Stmt.Function> methods",
+                "Continue     : Token keyword",
                 "Expression   : Expr expression",
+                "For          : Token keyword, Stmt initializer, Expr condition, Expr increment, Stmt body"
+                        + " | boolean scoped = true",
                 "Function     : Token name, List<Token> params, List<Stmt> body",
                 "If           : Expr condition, Stmt thenBranch, Stmt elseBranch",
+                "Import       : Token keyword, Token path | String module",
                 "Var          : Token name, Expr initializer",
                 "Print        : Expr expression",
                 "Return       : Token keyword, Expr value",
-                "While        : Expr condition, Stmt body"));
+                "Throw        : Token keyword, Expr value",
+                "Try          : Stmt.Block body, Token name, List<Stmt> handler",
+                "While        : Token keyword, Expr condition, Stmt body"));
     }
 
-    private static void defineAst(String outputDir, String baseName, List<String> types) throws IOException {
+    private static void defineAst(String outputDir, String baseName, List<String> baseFields, List<String> types)
+            throws IOException {
         String path = outputDir + "/" + baseName + ".java";
         PrintWriter writer = new PrintWriter(path, "UTF-8");
 
         writer.println("package jlox;");
         writer.println();
+        writer.println("import java.io.Serializable;");
         writer.println("import java.util.List;");
         writer.println();
-        writer.println("abstract class " + baseName + "{");
+        // Serializable so functions can be saved in snapshots along with their code
+        writer.println("abstract class " + baseName + " implements Serializable {");
+
+        for (String field : baseFields) {
+            writer.println("    " + field + ";");
+        }
 
         defineVisitor(writer, baseName, types);
 
@@ -81,12 +98,23 @@ public class GenerateAst {
     private static void defineType(PrintWriter writer, String baseName, String className, String fields) {
         writer.println("    public static class " + className + " extends " + baseName + " {");
 
+        // Anything after '|' is filled in by later passes rather than the parser
+        String[] annotations = {};
+        if (fields.contains("|")) {
+            annotations = fields.substring(fields.indexOf('|') + 1).trim().split(", ");
+            fields = fields.substring(0, fields.indexOf('|')).trim();
+        }
+
         // fileds
         String[] fieldList = fields.split(", ");
         for (String field : fieldList) {
             writer.println("        final " + field + ";");
         }
 
+        for (String annotation : annotations) {
+            writer.println("        " + annotation + ";");
+        }
+
         // constructor
         writer.println("        " + "public " + className + "(" + fields + ") {");
 
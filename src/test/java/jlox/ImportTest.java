@@ -0,0 +1,117 @@
+package jlox;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Imports compile each module once per process and run it once per
+ * interpreter, however many files import it and even when modules import
+ * each other. Every test writes its modules to a fresh directory, as the
+ * module cache is keyed by absolute path.
+ */
+public class ImportTest extends InterpreterFixture {
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("jlox-import");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testImportDefinesGlobals() throws IOException {
+        write("lib.lox", "fun twice(x) { return x * 2; }");
+        assertEquals(lines("42"), run("main.lox", "import \"lib.lox\"; print twice(21);"));
+    }
+
+    public void testSharedModuleRunsOnce() throws IOException {
+        write("common.lox", "print \"common\";");
+        write("a.lox", "import \"common.lox\";");
+        write("b.lox", "import \"common.lox\";");
+        assertEquals(lines("common", "done"), run("main.lox", "import \"a.lox\"; import \"b.lox\"; print \"done\";"));
+    }
+
+    public void testModuleIsCompiledOncePerProcess() throws IOException {
+        write("lib.lox", "var x = 1;");
+        run("main.lox", "import \"lib.lox\";");
+
+        String path = dir.resolve("lib.lox").toAbsolutePath().normalize().toString();
+        Program first = Modules.get(path);
+        run("other.lox", "import \"lib.lox\";");
+
+        assertSame(first, Modules.get(path));
+    }
+
+    public void testEachInterpreterRunsTheModule() throws IOException {
+        write("lib.lox", "print \"loaded\";");
+        run("main.lox", "import \"lib.lox\";");
+
+        Program program = compile("main.lox", "import \"lib.lox\";");
+        new Interpreter(reporter, new WriterSink(output)).run(program);
+
+        assertEquals(lines("loaded", "loaded"), output.toString());
+    }
+
+    public void testCyclicImportsRunEachModuleOnce() throws IOException {
+        write("a.lox", "import \"b.lox\"; print \"a\"; fun fromA() { return \"A\"; }");
+        write("b.lox", "import \"a.lox\"; print \"b\"; fun fromB() { return fromA() + \"B\"; }");
+        assertEquals(lines("b", "a", "AB"), run("main.lox", "import \"a.lox\"; print fromB();"));
+    }
+
+    public void testPathsAreRelativeToTheImportingFile() throws IOException {
+        Files.createDirectories(dir.resolve("lib"));
+        write("lib/inner.lox", "var where = \"inner\";");
+        write("lib/outer.lox", "import \"inner.lox\";");
+        assertEquals(lines("inner"), run("main.lox", "import \"lib/outer.lox\"; print where;"));
+    }
+
+    public void testMissingModuleIsACompileError() {
+        assertNull(compile("main.lox", "import \"missing.lox\";"));
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).contains("missing.lox"));
+    }
+
+    public void testErrorInModuleIsACompileError() throws IOException {
+        write("bad.lox", "var = 1;");
+        assertNull(compile("main.lox", "import \"bad.lox\";"));
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).contains("bad.lox"));
+    }
+
+    public void testInvalidPathIsACompileError() {
+        assertNull(compile("main.lox", "import \"a\0b.lox\";"));
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).contains("Invalid module path"));
+    }
+
+    public void testImportOnlyAtTopLevel() {
+        assertNull(compile("main.lox", "{ import \"lib.lox\"; }"));
+    }
+
+    public void testRuntimeErrorNamesTheModule() throws IOException {
+        write("lib.lox", "fun bad() {\n  return nil + 1;\n}");
+        run("main.lox", "import \"lib.lox\"; bad();");
+
+        assertTrue(reporter.hadRuntimeError());
+        String message = reporter.messages().get(0);
+        assertTrue(message, message.contains(dir.resolve("lib.lox").toString() + ", line 2"));
+    }
+
+    private void write(String name, String source) throws IOException {
+        Files.write(dir.resolve(name), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Program compile(String name, String source) {
+        return Program.compile(source, dir.resolve(name), reporter);
+    }
+
+    private String run(String name, String source) {
+        return run(compile(name, source));
+    }
+}
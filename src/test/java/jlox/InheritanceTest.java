@@ -0,0 +1,58 @@
+package jlox;
+
+/**
+ * Subclasses copy their superclass's methods into their own table when they
+ * are declared. Lookups, overrides and super calls must behave as if methods
+ * were still found by walking up the chain.
+ */
+public class InheritanceTest extends InterpreterFixture {
+    public void testInheritsMethods() {
+        assertEquals(lines("A.f"), run("class A { f() { print \"A.f\"; } } class B < A {} B().f();"));
+    }
+
+    public void testOverrideWins() {
+        assertEquals(lines("B.f", "A.f"), run("class A { f() { print \"A.f\"; } }"
+                + " class B < A { f() { print \"B.f\"; } }"
+                + " B().f(); A().f();"));
+    }
+
+    public void testSuperCallsTheOverriddenMethod() {
+        assertEquals(lines("B.f", "A.f"), run("class A { f() { print \"A.f\"; } }"
+                + " class B < A { f() { print \"B.f\"; super.f(); } }"
+                + " B().f();"));
+    }
+
+    public void testSuperSkipsOnlyOneLevel() {
+        assertEquals(lines("C", "B", "A"), run("class A { f() { print \"A\"; } }"
+                + " class B < A { f() { print \"B\"; super.f(); } }"
+                + " class C < B { f() { print \"C\"; super.f(); } }"
+                + " C().f();"));
+    }
+
+    public void testInheritedMethodCallsOverride() {
+        assertEquals(lines("B.name"), run("class A { show() { this.name(); } name() { print \"A.name\"; } }"
+                + " class B < A { name() { print \"B.name\"; } }"
+                + " B().show();"));
+    }
+
+    public void testInitializerIsInherited() {
+        assertEquals(lines("3"), run("class A { init(x) { this.x = x; } }"
+                + " class B < A { get() { return this.x; } }"
+                + " print B(3).get();"));
+    }
+
+    public void testBoundSuperMethod() {
+        assertEquals(lines("A.f 1"), run("class A { f() { print \"A.f \" + this.v; } }"
+                + " class B < A { init() { this.v = \"1\"; } g() { return super.f; } }"
+                + " var m = B().g(); m();"));
+    }
+
+    public void testSuperclassMustBeAClass() {
+        run("var NotAClass = 1; class B < NotAClass {}");
+        assertTrue(reporter.hadRuntimeError());
+    }
+
+    public void testClassCannotInheritFromItself() {
+        assertNull(Program.compile("class A < A {}", reporter));
+    }
+}
@@ -0,0 +1,38 @@
+package jlox;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Base for tests that run Lox source and check what it prints. Each test
+ * gets a fresh interpreter that prints into output.
+ */
+abstract class InterpreterFixture extends TestCase {
+    private static final String NEWLINE = System.lineSeparator();
+
+    final ErrorReporter reporter = new ErrorReporter(null);
+    final StringWriter output = new StringWriter();
+    final Interpreter interpreter = new Interpreter(reporter, new WriterSink(output));
+
+    /**
+     * Compiles and runs the source, failing on compile errors, and returns
+     * everything printed so far.
+     */
+    String run(String source) {
+        return run(Program.compile(source, reporter));
+    }
+
+    String run(Program program) {
+        assertNotNull(reporter.messages().toString(), program);
+        interpreter.run(program);
+        return output.toString();
+    }
+
+    static String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines)
+            text.append(line).append(NEWLINE);
+        return text.toString();
+    }
+}
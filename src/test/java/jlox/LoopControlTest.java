@@ -0,0 +1,49 @@
+package jlox;
+
+/**
+ * break and continue in for and while loops. continue in a for loop must
+ * still run the increment. The native for loop keeps the semantics of the
+ * old desugaring, where every iteration shares one loop variable.
+ */
+public class LoopControlTest extends InterpreterFixture {
+    public void testBreakLeavesFor() {
+        assertEquals(lines("0", "1", "2"), run("for (var i = 0; i < 10; i = i + 1) { if (i == 3) break; print i; }"));
+    }
+
+    public void testContinueRunsIncrement() {
+        assertEquals(lines("0", "2", "4"),
+                run("for (var i = 0; i < 6; i = i + 1) { if (i == 1 or i == 3 or i == 5) continue; print i; }"));
+    }
+
+    public void testBreakLeavesWhile() {
+        assertEquals(lines("3"), run("var i = 0; while (true) { i = i + 1; if (i == 3) break; } print i;"));
+    }
+
+    public void testContinueInWhile() {
+        assertEquals(lines("1", "3"),
+                run("var i = 0; while (i < 4) { i = i + 1; if (i == 2 or i == 4) continue; print i; }"));
+    }
+
+    public void testBreakOnlyLeavesInnermostLoop() {
+        assertEquals(lines("0", "1", "2", "3"), run("var n = 0; for (var i = 0; i < 3; i = i + 1) {"
+                + " for (var j = 0; j < 3; j = j + 1) { if (j == 1) break; n = n + 1; } print i; } print n;"));
+    }
+
+    public void testForWithoutClauses() {
+        assertEquals(lines("5"), run("var n = 0; for (;;) { n = n + 1; if (n == 5) break; } print n;"));
+    }
+
+    public void testClosuresShareTheLoopVariable() {
+        assertEquals(lines("3", "3", "3"), run("var fs = channel(3);"
+                + " for (var i = 0; i < 3; i = i + 1) { fun f() { return i; } send(fs, f); }"
+                + " print receive(fs)(); print receive(fs)(); print receive(fs)();"));
+    }
+
+    public void testBreakInsideFunctionInLoopIsAnError() {
+        assertNull(Program.compile("while (true) { fun f() { break; } }", reporter));
+    }
+
+    public void testContinueOutsideLoopIsAnError() {
+        assertNull(Program.compile("continue;", reporter));
+    }
+}
@@ -0,0 +1,64 @@
+package jlox;
+
+import junit.framework.TestCase;
+
+/**
+ * NumberFormatter must print every number exactly as Double.toString does,
+ * minus a trailing ".0", including around the switch to scientific notation.
+ */
+public class NumberFormatterTest extends TestCase {
+    public void testIntegers() {
+        check(0);
+        check(1);
+        check(-1);
+        check(42);
+        check(123456);
+        check(-9999999);
+    }
+
+    public void testNegativeZeroKeepsItsSign() {
+        assertEquals("-0", NumberFormatter.format(-0.0));
+        check(-0.0);
+    }
+
+    public void testFractions() {
+        check(0.5);
+        check(-2.25);
+        check(0.1 + 0.2);
+        check(1.0 / 3);
+        check(1e-3);
+        check(1e-4);
+    }
+
+    public void testScientificBoundary() {
+        check(9999999);
+        check(1e7);
+        check(-1e7);
+        check(1e7 + 1);
+        check(9999999.5);
+        check(1e21);
+        check(Long.MAX_VALUE);
+        check(Double.MAX_VALUE);
+        check(Double.MIN_VALUE);
+    }
+
+    public void testSpecialValues() {
+        check(Double.NaN);
+        check(Double.POSITIVE_INFINITY);
+        check(Double.NEGATIVE_INFINITY);
+    }
+
+    public void testAppendsToExistingText() {
+        StringBuilder out = new StringBuilder("x = ");
+        NumberFormatter.format(3.0, out);
+        assertEquals("x = 3", out.toString());
+    }
+
+    private static void check(double value) {
+        String expected = Double.toString(value);
+        if (expected.endsWith(".0"))
+            expected = expected.substring(0, expected.length() - 2);
+
+        assertEquals(expected, NumberFormatter.format(value));
+    }
+}
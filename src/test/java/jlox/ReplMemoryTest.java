@@ -0,0 +1,69 @@
+package jlox;
+
+import junit.framework.TestCase;
+
+/**
+ * A REPL session compiles every line against one long-lived interpreter.
+ * Whatever a line declares locally must become garbage once the line is
+ * done, or long sessions grow without limit.
+ */
+public class ReplMemoryTest extends TestCase {
+    private static final int LINES = 20000;
+
+    private final ErrorReporter reporter = new ErrorReporter(null);
+    private final Interpreter interpreter = new Interpreter(reporter, new NullSink());
+
+    public void testSymbolsStayBoundedOverLongSession() throws InterruptedException {
+        run("var total = 0;");
+        session(0, LINES);
+        int symbols = settledSymbols();
+
+        // Every line interns new names, so without collection this adds 8 * LINES symbols
+        session(LINES, 5 * LINES);
+
+        int bound = symbols + LINES / 10;
+        int after = symbolsUnder(bound);
+        assertTrue("symbols grew from " + symbols + " to " + after, after < bound);
+        assertFalse(reporter.hadRuntimeError());
+    }
+
+    // Each line declares names no other line uses, the way a scripted driver might
+    private void session(int from, int to) {
+        for (int i = from; i < to; i++) {
+            run("{ var local" + i + " = " + i + "; fun add" + i + "(x) { return x + local" + i + "; }"
+                    + " total = add" + i + "(total); }");
+            run("class Point { init(x) { this.x" + (i % 8) + " = x; } } var last = Point(" + i + ");");
+        }
+    }
+
+    private void run(String line) {
+        Program program = Program.compile(line, reporter);
+        assertNotNull(reporter.messages().toString(), program);
+        interpreter.run(program);
+    }
+
+    // Collects until the count stops falling, so the symbols still reachable are all that is left
+    private static int settledSymbols() throws InterruptedException {
+        int count = Symbol.count();
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            Thread.sleep(50);
+            int next = Symbol.count();
+            if (next >= count)
+                break;
+            count = next;
+        }
+        return count;
+    }
+
+    // Collects until the count is under the bound, giving up after about a second
+    private static int symbolsUnder(int bound) throws InterruptedException {
+        int count = Symbol.count();
+        for (int i = 0; i < 20 && count >= bound; i++) {
+            System.gc();
+            Thread.sleep(50);
+            count = Symbol.count();
+        }
+        return count;
+    }
+}
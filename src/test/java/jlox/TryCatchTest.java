@@ -0,0 +1,67 @@
+package jlox;
+
+/**
+ * throw raises any value, catch receives it, and runtime errors raised by
+ * the interpreter are caught with their message. Budget errors are not
+ * catchable: a script must not be able to outlive its limits.
+ */
+public class TryCatchTest extends InterpreterFixture {
+    public void testCatchesThrownValue() {
+        assertEquals(lines("42"), run("try { throw 42; } catch (e) { print e; }"));
+    }
+
+    public void testCatchesThrownInstance() {
+        assertEquals(lines("bad"), run("class Oops { init(why) { this.why = why; } }"
+                + " try { throw Oops(\"bad\"); } catch (e) { print e.why; }"));
+    }
+
+    public void testCatchesRuntimeErrorMessage() {
+        assertEquals(lines("Operands must be two numbers or two strings"),
+                run("try { nil + 1; } catch (e) { print e; }"));
+    }
+
+    public void testThrowUnwindsCalls() {
+        assertEquals(lines("deep", "after"), run("fun f(n) { if (n == 0) throw \"deep\"; f(n - 1); print \"no\"; }"
+                + " try { f(10); } catch (e) { print e; } print \"after\";"));
+    }
+
+    public void testRethrowReachesOuterHandler() {
+        assertEquals(lines("inner x", "outer x"), run("try {"
+                + " try { throw \"x\"; } catch (e) { print \"inner \" + e; throw e; }"
+                + " } catch (e) { print \"outer \" + e; }"));
+    }
+
+    public void testHandlerScopeIsItsOwn() {
+        assertEquals(lines("1", "outside"),
+                run("var e = \"outside\"; try { throw 1; } catch (e) { print e; } print e;"));
+    }
+
+    public void testUncaughtThrowIsReported() {
+        run("throw \"boom\";");
+        assertTrue(reporter.hadRuntimeError());
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).startsWith("boom"));
+    }
+
+    public void testStepBudgetPassesThroughCatch() {
+        interpreter.setBudget(new Budget(10000, 0, 0));
+        run("try { while (true) {} } catch (e) { print \"swallowed\"; }");
+
+        assertEquals("", output.toString());
+        assertTrue(reporter.hadRuntimeError());
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).contains("step budget"));
+    }
+
+    public void testTimeBudgetPassesThroughCatchAroundBlockingCall() {
+        interpreter.setBudget(new Budget(0, 100, 0));
+        run("var c = channel(1); try { receive(c); } catch (e) { print \"swallowed\"; }");
+
+        assertEquals("", output.toString());
+        assertTrue(reporter.messages().toString(), reporter.messages().get(0).contains("time budget"));
+    }
+
+    public void testJoinRaisesTaskErrorAtJoin() {
+        assertEquals(lines("task failed"), run("fun work() { throw \"task failed\"; }"
+                + " var t = spawn(work); try { join(t); } catch (e) { print e; }"));
+        assertFalse(reporter.hadRuntimeError());
+    }
+}